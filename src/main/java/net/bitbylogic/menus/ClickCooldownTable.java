@@ -0,0 +1,100 @@
+package net.bitbylogic.menus;
+
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * Click cooldowns of a menu or item, stored as expiry timestamps
+ * per player and slot. Expired entries are overwritten or pruned
+ * as clicks come in, nothing is scheduled per click.
+ * <p>
+ * Only accessed from the main thread.
+ */
+public class ClickCooldownTable {
+
+    private static final int PRUNE_INTERVAL = 256;
+
+    private final Map<UUID, long[]> expiries = new HashMap<>();
+
+    private int acquisitions;
+
+    /**
+     * Start a cooldown unless one is active.
+     *
+     * @param player The clicking player.
+     * @param ordinal The slot or other non-negative key of the cooldown.
+     * @param durationMillis The cooldown length in milliseconds.
+     * @return Whether the cooldown was started, false if one is active.
+     */
+    public boolean tryAcquire(@NonNull UUID player, int ordinal, long durationMillis) {
+        if (ordinal < 0) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        long[] playerExpiries = expiries.get(player);
+
+        if (playerExpiries != null && ordinal < playerExpiries.length && playerExpiries[ordinal] > now) {
+            return false;
+        }
+
+        if (durationMillis <= 0) {
+            return true;
+        }
+
+        if (playerExpiries == null || ordinal >= playerExpiries.length) {
+            playerExpiries = playerExpiries == null
+                    ? new long[Math.max(ordinal + 1, 9)]
+                    : Arrays.copyOf(playerExpiries, Math.max(ordinal + 1, playerExpiries.length * 2));
+
+            expiries.put(player, playerExpiries);
+        }
+
+        playerExpiries[ordinal] = now + durationMillis;
+
+        if (++acquisitions % PRUNE_INTERVAL == 0) {
+            prune(now);
+        }
+
+        return true;
+    }
+
+    public boolean hasCooldown(@NonNull UUID player, int ordinal) {
+        long[] playerExpiries = expiries.get(player);
+
+        if (playerExpiries == null || ordinal < 0 || ordinal >= playerExpiries.length) {
+            return false;
+        }
+
+        return playerExpiries[ordinal] > System.currentTimeMillis();
+    }
+
+    public void clear(@NonNull UUID player) {
+        expiries.remove(player);
+    }
+
+    public void clear() {
+        expiries.clear();
+    }
+
+    /**
+     * @return The number of players with a stored cooldown.
+     */
+    public int getSize() {
+        return expiries.size();
+    }
+
+    private void prune(long now) {
+        expiries.values().removeIf(playerExpiries -> {
+            for (long expiry : playerExpiries) {
+                if (expiry > now) {
+                    return false;
+                }
+            }
+
+            return true;
+        });
+    }
+
+}
@@ -4,17 +4,23 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import net.bitbylogic.menus.codec.MenuBinaryCodec;
+import net.bitbylogic.menus.codec.MenuFormatConverter;
 import net.bitbylogic.menus.data.MenuData;
 import net.bitbylogic.menus.inventory.MenuInventory;
+import net.bitbylogic.menus.item.BatchMenuItemUpdateProvider;
 import net.bitbylogic.menus.item.MenuItem;
+import net.bitbylogic.menus.item.MenuItemRegistry;
+import net.bitbylogic.menus.task.MenuMemoryReport;
+import net.bitbylogic.menus.task.MenuSaveQueue;
 import net.bitbylogic.menus.task.MenuUpdateTask;
 import net.bitbylogic.menus.task.TitleUpdateTask;
+import net.bitbylogic.menus.template.MenuTemplate;
+import net.bitbylogic.menus.template.MenuTemplateCache;
+import net.bitbylogic.menus.text.MessageTemplateCache;
 import net.bitbylogic.menus.view.internal.NextPageViewRequirement;
 import net.bitbylogic.menus.view.internal.PreviousPageViewRequirement;
 import net.bitbylogic.utils.Pair;
-import net.bitbylogic.utils.inventory.InventoryUtil;
-import net.bitbylogic.utils.item.ItemStackUtil;
-import net.bitbylogic.utils.message.MessageUtil;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.bukkit.Bukkit;
@@ -31,19 +37,30 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 @Getter
 @Setter
 public class Menu implements InventoryHolder, Cloneable {
 
     private static final MenuSerializer SERIALIZER = new MenuSerializer();
+    private static final MenuBinaryCodec CODEC = new MenuBinaryCodec();
+    private static final Set<String> SHADOWED_FILES = ConcurrentHashMap.newKeySet();
     private static final String MENU_CONFIG_PATH = "menus/%s.yml";
+    private static final String BINARY_MENU_PATH = "menus/%s" + MenuFormatConverter.BINARY_EXTENSION;
+
+    public static final String NEXT_PAGE_ITEM_ID = "Next-Page-Item";
+    public static final String PREVIOUS_PAGE_ITEM_ID = "Previous-Page-Item";
 
     private final String id;
     private final String title;
@@ -51,20 +68,97 @@ public class Menu implements InventoryHolder, Cloneable {
 
     private final MenuData data;
 
-    private final List<MenuItem> items;
-    private final List<UUID> viewers;
+    @Getter(AccessLevel.NONE)
+    private final MenuItemRegistry items;
+    @Getter(AccessLevel.NONE)
+    private final Set<UUID> viewers;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicInteger viewerCount = new AtomicInteger();
 
+    /**
+     * The pages of this menu, copy-on-write so they can be
+     * read and iterated without locking.
+     */
     @Getter(AccessLevel.NONE)
     private final List<MenuInventory> inventories;
 
+    /**
+     * Immutable page lookup, replaced whenever a page is added.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Map<Inventory, MenuInventory> inventoryLookup = new IdentityHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile boolean inventoriesGenerated;
+
+    /**
+     * State of the pages unloaded while idle, restored when
+     * the pages are generated again.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int unloadedPageCount;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<Integer, ItemStack[]> unloadedContents = new HashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<MenuItem, Set<Integer>> unloadedItemPages = new IdentityHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    private final Set<MenuItem> indexedItems = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int indexedItemCount;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile boolean slotIndexDirty = true;
+
+    @Getter(AccessLevel.NONE)
+    private final Set<MenuItem> dirtyItems = ConcurrentHashMap.newKeySet();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile boolean fullRefreshRequested = true;
+
     private final MenuUpdateTask updateTask;
     private final TitleUpdateTask titleUpdateTask;
 
+    /**
+     * Cooldowns of clicks in the viewer's own inventory.
+     */
+    private final ClickCooldownTable externalClickCooldowns = new ClickCooldownTable();
+
+    /**
+     * Batch provider used by pages without their own.
+     */
+    private @Nullable BatchMenuItemUpdateProvider batchItemProvider;
+
+    @Setter(AccessLevel.NONE)
+    private volatile long lastInteraction = System.currentTimeMillis();
+
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     private final Lock readLock = lock.readLock();
     private final Lock writeLock = lock.writeLock();
 
+    /**
+     * Guards the pages' slot tables, so slot lookups can read them
+     * optimistically instead of taking the menu's read lock. It's
+     * only held around slot table writes, never while waiting on
+     * the menu's own lock.
+     */
+    @Getter(AccessLevel.NONE)
+    private final StampedLock slotIndexLock = new StampedLock();
+
     public Menu(@NonNull String id, @NonNull String title, @NonNull MenuRows menuRows) {
         this(id, title, menuRows.getSize());
     }
@@ -78,10 +172,10 @@ public class Menu implements InventoryHolder, Cloneable {
         this.title = title;
         this.size = size;
 
-        this.items = new ArrayList<>();
+        this.items = new MenuItemRegistry();
         this.data = data == null ? new MenuData() : data;
-        this.inventories = new ArrayList<>();
-        this.viewers = new ArrayList<>();
+        this.inventories = new CopyOnWriteArrayList<>();
+        this.viewers = ConcurrentHashMap.newKeySet();
 
         titleUpdateTask = new TitleUpdateTask(this);
         updateTask = new MenuUpdateTask(this);
@@ -93,23 +187,41 @@ public class Menu implements InventoryHolder, Cloneable {
         this.title = title;
         this.size = size;
         this.data = data == null ? new MenuData() : data;
-        this.items = items == null ? new ArrayList<>() : items;
-        this.inventories = inventories == null ? new ArrayList<>() : inventories;
-        this.viewers = new ArrayList<>();
+        this.items = items == null ? new MenuItemRegistry() : MenuItemRegistry.backedBy(items);
+        this.inventories = inventories == null ? new CopyOnWriteArrayList<>() : new CopyOnWriteArrayList<>(inventories);
+        this.viewers = ConcurrentHashMap.newKeySet();
+
+        for (int i = 0; i < this.inventories.size(); i++) {
+            MenuInventory menuInventory = this.inventories.get(i);
+
+            menuInventory.setPageIndex(i);
+            registerInventory(menuInventory);
+        }
+
+        this.inventoriesGenerated = !this.inventories.isEmpty();
 
         titleUpdateTask = new TitleUpdateTask(this);
         updateTask = new MenuUpdateTask(this);
     }
 
+    /**
+     * Load a menu from its binary file, or its YAML file if there's
+     * no binary one. Saves of the menu go to the same file.
+     *
+     * @param directory The plugin's data folder.
+     * @param id The menu id.
+     * @return The menu, or empty if neither file can be loaded.
+     */
     public static Optional<Menu> getFromFile(@Nullable File directory, @NonNull String id) {
-        File file = new File(directory, String.format(MENU_CONFIG_PATH, id));
+        File file = new File(directory, String.format(BINARY_MENU_PATH, id));
 
-        if (!file.exists() || file.isDirectory()) {
-            return Optional.empty();
+        if (!file.isFile()) {
+            file = new File(directory, String.format(MENU_CONFIG_PATH, id));
+        } else if (new File(directory, String.format(MENU_CONFIG_PATH, id)).isFile() && SHADOWED_FILES.add(file.getAbsolutePath())) {
+            Bukkit.getLogger().warning("Menu '" + id + "' has both a binary and a YAML file, the YAML file is ignored!");
         }
 
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-        return SERIALIZER.deserialize(config);
+        return MenuTemplateCache.getInstance().getTemplate(file).map(MenuTemplate::newInstance);
     }
 
     public static Optional<Menu> getFromConfig(@Nullable ConfigurationSection section) {
@@ -121,7 +233,9 @@ public class Menu implements InventoryHolder, Cloneable {
     }
 
     /**
-     * Add an item to the Menu.
+     * Add an item to the Menu. Items without a page are placed on the
+     * first page, when the menu has no pages yet that happens once
+     * they're generated, so building a menu never creates inventories.
      *
      * @param item The item to add.
      * @return The Menu instance.
@@ -132,13 +246,14 @@ public class Menu implements InventoryHolder, Cloneable {
         try {
             item.setMenu(this);
 
-            if (item.getSourceInventories().isEmpty()) {
-                item.getSourceInventories().add(inventories.isEmpty() ? getInventory() : inventories.getFirst().getInventory());
+            if (item.getSourceInventories().isEmpty() && !inventories.isEmpty()) {
+                item.withSourceInventory(inventories.getFirst().getInventory());
             }
 
-            data.getFillerItem().ifPresent(fillerItem -> fillerItem.getSlots().removeAll(item.getSlots()));
+            data.getFillerItem().ifPresent(fillerItem -> fillerItem.removeSlots(item.getSlots()));
 
             items.add(item);
+            indexAddedItem(item);
             return this;
         } finally {
             writeLock.unlock();
@@ -154,9 +269,7 @@ public class Menu implements InventoryHolder, Cloneable {
     public void addAndSetItem(@NonNull MenuItem item) {
         writeLock.lock();
         try {
-            if (inventories.isEmpty()) {
-                generateInventories();
-            }
+            ensureInventories();
 
             Pair<Inventory, Integer> availableSlot = getNextAvailableSlot();
 
@@ -169,87 +282,124 @@ public class Menu implements InventoryHolder, Cloneable {
             }
 
             item.setMenu(this);
-            items.add(item);
 
             boolean locked = item.isLocked();
 
-            item.getSlots().clear();
+            item.clearSlots();
 
             if (locked) {
                 item.setLocked(false);
             }
 
             item.withSlot(availableSlot.getValue());
-            item.withSourceInventory(availableSlot.getKey());
+
+            if (!item.getSourceInventories().contains(availableSlot.getKey())) {
+                item.withSourceInventory(availableSlot.getKey());
+            }
+
             item.setLocked(locked);
 
-            availableSlot.getKey().setItem(availableSlot.getValue(), item.getItemUpdateProvider() == null ? item.getItem() : item.getItemUpdateProvider().requestItem(item));
+            items.add(item);
+            indexAddedItem(item);
+
+            MenuInventory menuInventory = inventoryLookup.get(availableSlot.getKey());
+            ItemStack renderedItem = item.render(data);
+
+            if (menuInventory == null) {
+                availableSlot.getKey().setItem(availableSlot.getValue(), renderedItem);
+                return;
+            }
+
+            menuInventory.setItem(availableSlot.getValue(), renderedItem);
         } finally {
             writeLock.unlock();
         }
     }
 
     public void addItemStack(ItemStack item) {
+        addItemStacks(List.of(item));
+    }
+
+    /**
+     * Add stacks to the menu's valid slots, merging into similar
+     * stacks on any page before filling empty slots, and creating
+     * pages as needed. Must be called from the main thread, use
+     * {@link net.bitbylogic.menus.task.MenuMutationQueue} from others.
+     *
+     * @param stacks The stacks to add.
+     * @return The parts of the stacks that didn't fit.
+     */
+    public List<ItemStack> addItemStacks(@NonNull Collection<ItemStack> stacks) {
+        ensureSlotIndex();
+
         writeLock.lock();
         try {
-            if (inventories.isEmpty()) {
-                generateInventories();
-            }
+            ensureInventories();
 
-            HashMap<MenuInventory, Integer> itemDistribution = new HashMap<>();
+            List<ItemStack> leftovers = new ArrayList<>();
 
-            ItemStack clonedItem = item.clone();
-            int amountLeft = item.getAmount();
+            for (ItemStack stack : stacks) {
+                if (stack == null || stack.getType().isAir() || stack.getAmount() <= 0) {
+                    continue;
+                }
 
-            for (MenuInventory menuInventory : inventories) {
-                Inventory inventory = menuInventory.getInventory();
-                int availableSpace = InventoryUtil.getAvailableSpace(inventory, item, data.getValidSlots());
+                int amountLeft = distributeItemStack(stack);
 
-                if (availableSpace >= amountLeft) {
-                    amountLeft = 0;
-                    InventoryUtil.addItem(inventory, clonedItem, data.getValidSlots());
-                    break;
+                if (amountLeft <= 0) {
+                    continue;
                 }
 
-                itemDistribution.put(menuInventory, availableSpace);
-                amountLeft -= availableSpace;
-                clonedItem.setAmount(amountLeft);
+                ItemStack leftover = stack.clone();
+                leftover.setAmount(amountLeft);
+                leftovers.add(leftover);
             }
 
-            while (amountLeft > 0) {
-                Optional<MenuInventory> generatedOptional = generateNewInventory();
+            return leftovers;
+        } finally {
+            writeLock.unlock();
+        }
+    }
 
-                if (generatedOptional.isEmpty() || (data.getMaxInventories() != -1 && inventories.size() >= data.getMaxInventories())) {
-                    break;
-                }
+    private int distributeItemStack(@NonNull ItemStack stack) {
+        ItemStack key = MenuInventory.getSimilarityKey(stack);
+        int amountLeft = stack.getAmount();
 
-                MenuInventory menuInventory = generatedOptional.get();
-                inventories.add(menuInventory);
+        for (MenuInventory menuInventory : inventories) {
+            if (amountLeft <= 0) {
+                return 0;
+            }
 
-                Inventory inventory = menuInventory.getInventory();
-                int availableSpace = InventoryUtil.getAvailableSpace(inventory, item, data.getValidSlots());
+            amountLeft = menuInventory.mergeItem(key, amountLeft);
+        }
 
-                if (availableSpace >= amountLeft) {
-                    amountLeft = 0;
-                    InventoryUtil.addItem(inventory, clonedItem, data.getValidSlots());
-                    break;
-                }
+        for (MenuInventory menuInventory : inventories) {
+            if (amountLeft <= 0) {
+                return 0;
+            }
+
+            amountLeft = menuInventory.placeItem(key, amountLeft);
+        }
 
-                itemDistribution.put(menuInventory, availableSpace);
-                amountLeft -= availableSpace;
-                clonedItem.setAmount(amountLeft);
+        while (amountLeft > 0) {
+            Optional<MenuInventory> generatedOptional = generateNewInventory();
+
+            if (generatedOptional.isEmpty()) {
+                break;
             }
 
-            itemDistribution.forEach((menuInventory, amount) -> {
-                Inventory inventory = menuInventory.getInventory();
+            MenuInventory menuInventory = generatedOptional.get();
+            addInventory(menuInventory);
 
-                ItemStack distributionItem = item.clone();
-                distributionItem.setAmount(amount);
-                InventoryUtil.addItem(inventory, distributionItem, data.getValidSlots());
-            });
-        } finally {
-            writeLock.unlock();
+            int remaining = menuInventory.placeItem(key, amountLeft);
+
+            if (remaining == amountLeft) {
+                break;
+            }
+
+            amountLeft = remaining;
         }
+
+        return Math.max(0, amountLeft);
     }
 
     public Menu setItem(int slot, MenuItem item) {
@@ -258,16 +408,122 @@ public class Menu implements InventoryHolder, Cloneable {
             item.setMenu(this);
             item.withSlot(slot);
             items.add(item);
+            indexAddedItem(item);
             return this;
         } finally {
             writeLock.unlock();
         }
     }
 
+    /**
+     * Register a player viewing one of this menu's pages, the page
+     * is registered with the {@link MenuManager} while it has viewers.
+     *
+     * @param page The page being viewed.
+     * @param viewer The viewing player.
+     * @return Whether this is the menu's first viewer.
+     */
+    public boolean addViewer(@NonNull MenuInventory page, @NonNull UUID viewer) {
+        if (!page.getViewers().add(viewer)) {
+            return false;
+        }
+
+        MenuManager.getInstance().register(page);
+
+        viewers.add(viewer);
+        return viewerCount.incrementAndGet() == 1;
+    }
+
+    /**
+     * Unregister a player that stopped viewing one of this menu's pages.
+     *
+     * @param page The page that was viewed.
+     * @param viewer The viewing player.
+     * @return Whether the menu has no viewers left.
+     */
+    public boolean removeViewer(@NonNull MenuInventory page, @NonNull UUID viewer) {
+        if (!page.getViewers().remove(viewer)) {
+            return false;
+        }
+
+        if (!page.hasViewers()) {
+            MenuManager.getInstance().unregister(page);
+        }
+
+        if (inventories.stream().noneMatch(menuInventory -> menuInventory.getViewers().contains(viewer))) {
+            viewers.remove(viewer);
+        }
+
+        return viewerCount.decrementAndGet() == 0;
+    }
+
+    public int getViewerCount() {
+        return viewerCount.get();
+    }
+
+    /**
+     * Get the players viewing any page of this menu, viewers are
+     * tracked through {@link #addViewer} and {@link #removeViewer}.
+     *
+     * @return A snapshot of the viewers.
+     */
+    public List<UUID> getViewers() {
+        return new ArrayList<>(viewers);
+    }
+
+    /**
+     * Get the players viewing any page of this menu without copying.
+     *
+     * @return A read-only view of the viewers.
+     */
+    public Set<UUID> getViewerSet() {
+        return Collections.unmodifiableSet(viewers);
+    }
+
+    /**
+     * Remove an item from the Menu and clear its slots.
+     *
+     * @param item The item to remove.
+     * @return Whether the item was part of the menu.
+     */
+    public boolean removeItem(@NonNull MenuItem item) {
+        writeLock.lock();
+        try {
+            if (!items.remove(item)) {
+                return false;
+            }
+
+            for (Inventory inventory : item.getSourceInventories()) {
+                MenuInventory menuInventory = inventoryLookup.get(inventory);
+
+                if (menuInventory == null) {
+                    continue;
+                }
+
+                item.getSlots().forEach(slot -> menuInventory.setItem(slot, null));
+            }
+
+            invalidateSlotIndex();
+            invalidate();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Optional<MenuItem> removeItem(@NonNull String id) {
+        writeLock.lock();
+        try {
+            return getItem(id).filter(this::removeItem);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     public Optional<MenuItem> getItem(String id) {
         readLock.lock();
         try {
-            return items.stream().filter(item -> item.getId().equalsIgnoreCase(id)).findFirst();
+            return items.getById(id);
         } finally {
             readLock.unlock();
         }
@@ -286,6 +542,7 @@ public class Menu implements InventoryHolder, Cloneable {
             fallbackItem.setMenu(this);
 
             items.add(fallbackItem);
+            indexAddedItem(fallbackItem);
             return fallbackItem;
         } finally {
             writeLock.unlock();
@@ -307,32 +564,319 @@ public class Menu implements InventoryHolder, Cloneable {
                 }
 
                 data.getItemStorage().add(menuItem);
-                return this;
+                return this;
+            }
+
+            addItem(menuItem);
+            return this;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Get the items occupying a slot of one of this menu's pages.
+     * Lookups are served from the page's slot table without locking
+     * when it's current, it's rebuilt lazily after structural changes.
+     *
+     * @param inventory The page inventory.
+     * @param slot The slot to look up.
+     * @return An immutable list of the items in the slot.
+     */
+    public List<MenuItem> getItems(Inventory inventory, int slot) {
+        long stamp = slotIndexLock.tryOptimisticRead();
+
+        if (stamp != 0 && !isSlotIndexStale()) {
+            MenuInventory menuInventory = inventoryLookup.get(inventory);
+            List<MenuItem> slotItems = menuInventory == null ? List.of() : menuInventory.getSlotItems(slot);
+
+            if (slotIndexLock.validate(stamp)) {
+                return slotItems;
+            }
+        }
+
+        ensureSlotIndex();
+
+        readLock.lock();
+        try {
+            if (isSlotIndexStale()) {
+                return items.stream().filter(item -> item.getSlots().contains(slot) && item.getSourceInventories().contains(inventory)).toList();
+            }
+
+            MenuInventory menuInventory = inventoryLookup.get(inventory);
+            return menuInventory == null ? List.of() : menuInventory.getSlotItems(slot);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public Optional<MenuItem> getItem(Inventory inventory, int slot) {
+        List<MenuItem> items = getItems(inventory, slot);
+        return items.isEmpty() ? Optional.empty() : Optional.of(items.getFirst());
+    }
+
+    /**
+     * Mark the slot table as stale, it will be rebuilt
+     * on the next slot lookup.
+     */
+    public void invalidateSlotIndex() {
+        long stamp = slotIndexLock.writeLock();
+        try {
+            slotIndexDirty = true;
+        } finally {
+            slotIndexLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Index every slot of an item that is already part of
+     * this menu, used when its slots or source inventories grow.
+     *
+     * @param item The item to index.
+     */
+    public void indexItem(@NonNull MenuItem item) {
+        writeLock.lock();
+        try {
+            if (slotIndexDirty || !indexedItems.contains(item)) {
+                return;
+            }
+
+            long stamp = slotIndexLock.writeLock();
+            try {
+                placeInSlotIndex(item);
+            } finally {
+                slotIndexLock.unlockWrite(stamp);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void indexItemSlot(@NonNull MenuItem item, int slot) {
+        writeLock.lock();
+        try {
+            if (slotIndexDirty || !indexedItems.contains(item)) {
+                return;
+            }
+
+            long stamp = slotIndexLock.writeLock();
+            try {
+                for (Inventory inventory : item.getSourceInventories()) {
+                    MenuInventory menuInventory = inventoryLookup.get(inventory);
+
+                    if (menuInventory == null) {
+                        continue;
+                    }
+
+                    menuInventory.indexItem(slot, item);
+                }
+            } finally {
+                slotIndexLock.unlockWrite(stamp);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void indexItemInventory(@NonNull MenuItem item, @NonNull Inventory inventory) {
+        writeLock.lock();
+        try {
+            if (slotIndexDirty || !indexedItems.contains(item)) {
+                return;
+            }
+
+            MenuInventory menuInventory = inventoryLookup.get(inventory);
+
+            if (menuInventory == null) {
+                return;
+            }
+
+            long stamp = slotIndexLock.writeLock();
+            try {
+                menuInventory.indexItem(item);
+            } finally {
+                slotIndexLock.unlockWrite(stamp);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Record that a player interacted with this menu, menus
+     * without recent interaction are updated less often while
+     * the server is lagging.
+     */
+    public void markInteraction() {
+        lastInteraction = System.currentTimeMillis();
+    }
+
+    /**
+     * Request that every item is re-rendered on the next update.
+     */
+    public void invalidate() {
+        fullRefreshRequested = true;
+    }
+
+    /**
+     * Request that an item is re-rendered on the next update.
+     *
+     * @param item The item to re-render.
+     */
+    public void invalidate(@NonNull MenuItem item) {
+        dirtyItems.add(item);
+    }
+
+    /**
+     * Consume a pending full refresh request.
+     *
+     * @return Whether a full refresh was requested since the last call.
+     */
+    public boolean consumeFullRefresh() {
+        if (!fullRefreshRequested) {
+            return false;
+        }
+
+        fullRefreshRequested = false;
+        return true;
+    }
+
+    /**
+     * Remove and return every item invalidated since the last call.
+     *
+     * @return The invalidated items.
+     */
+    public Set<MenuItem> drainDirtyItems() {
+        if (dirtyItems.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<MenuItem> drained = Collections.newSetFromMap(new IdentityHashMap<>());
+        Iterator<MenuItem> iterator = dirtyItems.iterator();
+
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+
+        return drained;
+    }
+
+    /**
+     * @return This menu's items, changes to the list are reflected in the menu.
+     */
+    public List<MenuItem> getItems() {
+        return items;
+    }
+
+    /**
+     * @return A copy of this menu's items, safe to iterate while the menu changes.
+     */
+    public List<MenuItem> getItemsSnapshot() {
+        readLock.lock();
+        try {
+            return new ArrayList<>(items);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Move every item without slots into the menu's item storage.
+     */
+    public void storeSlotlessItems() {
+        writeLock.lock();
+        try {
+            Iterator<MenuItem> iterator = items.iterator();
+
+            while (iterator.hasNext()) {
+                MenuItem menuItem = iterator.next();
+
+                if (!menuItem.getSlots().isEmpty()) {
+                    continue;
+                }
+
+                data.getItemStorage().add(menuItem);
+                iterator.remove();
+                invalidateSlotIndex();
             }
-
-            addItem(menuItem);
-            return this;
         } finally {
             writeLock.unlock();
         }
     }
 
-    public List<MenuItem> getItems(Inventory inventory, int slot) {
-        readLock.lock();
+    private void indexAddedItem(@NonNull MenuItem item) {
+        dirtyItems.add(item);
+
+        long stamp = slotIndexLock.writeLock();
         try {
-            return items.stream().filter(item -> item.getSlots().contains(slot) && item.getSourceInventories().contains(inventory)).collect(Collectors.toList());
+            indexedItemCount++;
+
+            if (indexedItems.add(item) && !slotIndexDirty) {
+                placeInSlotIndex(item);
+            }
         } finally {
-            readLock.unlock();
+            slotIndexLock.unlockWrite(stamp);
         }
     }
 
-    public Optional<MenuItem> getItem(Inventory inventory, int slot) {
-        readLock.lock();
+    /**
+     * Navigation items are shared by every page, so each new page
+     * only adds the slots they don't have yet.
+     */
+    private static void addMissingSlots(@NonNull MenuItem item, @NonNull List<Integer> slots) {
+        item.withSlots(slots.stream().filter(slot -> !item.getSlots().contains(slot)).toList());
+    }
+
+    private void placeInSlotIndex(@NonNull MenuItem item) {
+        for (Inventory inventory : item.getSourceInventories()) {
+            MenuInventory menuInventory = inventoryLookup.get(inventory);
+
+            if (menuInventory == null) {
+                continue;
+            }
+
+            menuInventory.indexItem(item);
+        }
+    }
+
+    private boolean isSlotIndexStale() {
+        return slotIndexDirty || indexedItemCount != items.size();
+    }
+
+    private void ensureSlotIndex() {
+        if (!isSlotIndexStale()) {
+            return;
+        }
+
+        // A read lock can't be upgraded, callers holding one fall back to a scan
+        if (lock.getReadHoldCount() > 0 && !lock.isWriteLockedByCurrentThread()) {
+            return;
+        }
+
+        writeLock.lock();
         try {
-            List<MenuItem> items = getItems(inventory, slot);
-            return items.isEmpty() ? Optional.empty() : Optional.of(items.getFirst());
+            if (!isSlotIndexStale()) {
+                return;
+            }
+
+            long stamp = slotIndexLock.writeLock();
+            try {
+                inventoryLookup.values().forEach(MenuInventory::clearSlotIndex);
+                indexedItems.clear();
+
+                for (MenuItem item : items) {
+                    indexedItems.add(item);
+                    placeInSlotIndex(item);
+                }
+
+                indexedItemCount = items.size();
+                slotIndexDirty = false;
+            } finally {
+                slotIndexLock.unlockWrite(stamp);
+            }
         } finally {
-            readLock.unlock();
+            writeLock.unlock();
         }
     }
 
@@ -358,26 +902,29 @@ public class Menu implements InventoryHolder, Cloneable {
             placeholders.add(Placeholder.unparsed("page", inventories.size() + 1 + ""));
 
             AtomicReference<List<Integer>> availableSlots = new AtomicReference<>(new ArrayList<>(validSlots));
-            Inventory inventory = Bukkit.createInventory(this, size, MessageUtil.deserializeToSpigot(title, placeholders.toArray(new TagResolver.Single[]{})));
+            Inventory inventory = Bukkit.createInventory(this, size, MessageTemplateCache.getInstance().render(title, placeholders));
+
+            MenuInventory menuInventory = new MenuInventory(inventory, title);
+            registerInventory(menuInventory);
 
             List<MenuItem> itemCache = new ArrayList<>();
 
-            getItem("Next-Page-Item").ifPresentOrElse(nextPageItem -> {
+            getItem(NEXT_PAGE_ITEM_ID).ifPresentOrElse(nextPageItem -> {
                 nextPageItem.setLocked(false);
 
                 nextPageItem.saveSlots(false);
                 nextPageItem.setMenu(this);
                 nextPageItem.withSourceInventory(inventory);
-                nextPageItem.withSlots(getData().getMetadata().getValueAsOrDefault("Next-Page-Slots", new ArrayList<>()));
+                addMissingSlots(nextPageItem, getData().getMetadata().getValueAsOrDefault("Next-Page-Slots", new ArrayList<>()));
                 nextPageItem.getSlots().forEach(slot -> availableSlots.get().remove(slot));
 
                 if(data.hasFlag(MenuFlag.DISABLE_UPDATES)) {
-                    nextPageItem.getSlots().forEach(slot -> inventory.setItem(slot, nextPageItem.getItem().clone()));
+                    nextPageItem.getSlots().forEach(slot -> menuInventory.setItem(slot, nextPageItem.render(data)));
                 }
 
                 nextPageItem.setLocked(true);
             }, () -> {
-                getData().getStoredItem("Next-Page-Item").ifPresent(nextPageItem -> {
+                getData().getStoredItem(NEXT_PAGE_ITEM_ID).ifPresent(nextPageItem -> {
                     nextPageItem.setLocked(false);
                     nextPageItem.saveSlots(false);
                     nextPageItem.setMenu(this);
@@ -398,35 +945,35 @@ public class Menu implements InventoryHolder, Cloneable {
                         event.getWhoClicked().openInventory(getInventories().get(nextIndex).getInventory());
                     });
 
-                    nextPageItem.withSlots(getData().getMetadata().getValueAsOrDefault("Next-Page-Slots", new ArrayList<>()));
+                    addMissingSlots(nextPageItem, getData().getMetadata().getValueAsOrDefault("Next-Page-Slots", new ArrayList<>()));
                     nextPageItem.getSlots().forEach(slot -> availableSlots.get().remove(slot));
                     nextPageItem.setLocked(true);
                     nextPageItem.setGlobal(false);
 
                     if(data.hasFlag(MenuFlag.DISABLE_UPDATES)) {
-                        nextPageItem.getSlots().forEach(slot -> inventory.setItem(slot, nextPageItem.getItem().clone()));
+                        nextPageItem.getSlots().forEach(slot -> menuInventory.setItem(slot, nextPageItem.render(data)));
                     }
 
                     itemCache.add(nextPageItem);
                 });
             });
 
-            getItem("Previous-Page-Item").ifPresentOrElse(previousPageItem -> {
+            getItem(PREVIOUS_PAGE_ITEM_ID).ifPresentOrElse(previousPageItem -> {
                 previousPageItem.setLocked(false);
 
                 previousPageItem.saveSlots(false);
                 previousPageItem.setMenu(this);
                 previousPageItem.withSourceInventory(inventory);
-                previousPageItem.withSlots(getData().getMetadata().getValueAsOrDefault("Previous-Page-Slots", new ArrayList<>()));
+                addMissingSlots(previousPageItem, getData().getMetadata().getValueAsOrDefault("Previous-Page-Slots", new ArrayList<>()));
                 previousPageItem.getSlots().forEach(slot -> availableSlots.get().remove(slot));
 
                 if(data.hasFlag(MenuFlag.DISABLE_UPDATES)) {
-                    previousPageItem.getSlots().forEach(slot -> inventory.setItem(slot, previousPageItem.getItem().clone()));
+                    previousPageItem.getSlots().forEach(slot -> menuInventory.setItem(slot, previousPageItem.render(data)));
                 }
 
                 previousPageItem.setLocked(true);
             }, () -> {
-                getData().getStoredItem("Previous-Page-Item").ifPresent(previousPageItem -> {
+                getData().getStoredItem(PREVIOUS_PAGE_ITEM_ID).ifPresent(previousPageItem -> {
                     previousPageItem.setLocked(false);
                     previousPageItem.saveSlots(false);
                     previousPageItem.setMenu(this);
@@ -447,32 +994,33 @@ public class Menu implements InventoryHolder, Cloneable {
                         event.getWhoClicked().openInventory(getInventories().get(previousIndex).getInventory());
                     });
 
-                    previousPageItem.withSlots(getData().getMetadata().getValueAsOrDefault("Previous-Page-Slots", new ArrayList<>()));
+                    addMissingSlots(previousPageItem, getData().getMetadata().getValueAsOrDefault("Previous-Page-Slots", new ArrayList<>()));
                     previousPageItem.getSlots().forEach(slot -> availableSlots.get().remove(slot));
                     previousPageItem.setLocked(true);
                     previousPageItem.setGlobal(false);
 
                     if(data.hasFlag(MenuFlag.DISABLE_UPDATES)) {
-                        previousPageItem.getSlots().forEach(slot -> inventory.setItem(slot, previousPageItem.getItem().clone()));
+                        previousPageItem.getSlots().forEach(slot -> menuInventory.setItem(slot, previousPageItem.render(data)));
                     }
 
                     itemCache.add(previousPageItem);
                 });
             });
 
-            items.forEach(menuItem -> {
-                if (menuItem.getItem() == null && menuItem.getItemUpdateProvider() == null) {
-                    return;
-                }
+            long placeholderVersion = data.getPlaceholderVersion();
 
-                ItemStack item = menuItem.getItemUpdateProvider() == null ? menuItem.getItem().clone() : menuItem.getItemUpdateProvider().requestItem(menuItem);
+            List<MenuItem> pageItems = items.stream()
+                    .filter(menuItem -> menuItem.getItem() != null || menuItem.getItemUpdateProvider() != null)
+                    .filter(menuItem -> menuItem.getSourceInventories().isEmpty() || menuItem.isGlobal())
+                    .filter(menuItem -> !unloadedItemPages.containsKey(menuItem))
+                    .toList();
 
-                if (!data.getPlaceholders().isEmpty()) {
-                    List<TagResolver.Single> allPlaceholders = new ArrayList<>(data.getPlaceholders());
-                    ItemStackUtil.updateItem(item, allPlaceholders.toArray(new TagResolver.Single[]{}));
-                }
+            Map<MenuItem, ItemStack> providedItems = menuInventory.requestItems(pageItems);
+
+            pageItems.forEach(menuItem -> {
+                ItemStack item = menuItem.render(data, placeholderVersion, providedItems.get(menuItem));
 
-                if(!menuItem.getSourceInventories().isEmpty() && !menuItem.isGlobal()) {
+                if (item == null) {
                     return;
                 }
 
@@ -485,7 +1033,7 @@ public class Menu implements InventoryHolder, Cloneable {
                             return;
                         }
 
-                        inventory.setItem(slot, item);
+                        menuInventory.setItem(slot, item);
                     });
 
                     return;
@@ -499,22 +1047,32 @@ public class Menu implements InventoryHolder, Cloneable {
                 availableSlots.get().removeAll(Collections.singletonList(slot));
 
                 menuItem.withSourceInventory(inventory);
-                menuItem.getSlots().add(slot);
+
+                boolean locked = menuItem.isLocked();
+
+                menuItem.setLocked(false);
+                menuItem.withSlot(slot);
+                menuItem.setLocked(locked);
 
                 if (menuItem.getViewRequirements().stream().anyMatch(requirement -> !requirement.canView(inventory, menuItem, this))) {
                     return;
                 }
 
-                inventory.setItem(slot, item);
+                menuInventory.setItem(slot, item);
             });
 
-            items.addAll(itemCache);
+            itemCache.forEach(cachedItem -> {
+                items.add(cachedItem);
+                indexAddedItem(cachedItem);
+            });
 
             data.getFillerItem().ifPresent(fillerItem -> {
                 if (fillerItem.getItem() == null || fillerItem.getItem().getType().isAir()) {
                     return;
                 }
 
+                ItemStack fillerStack = fillerItem.render(data, placeholderVersion);
+
                 fillerItem.setLocked(false);
                 fillerItem.saveSlots(false);
 
@@ -528,7 +1086,7 @@ public class Menu implements InventoryHolder, Cloneable {
                     }
 
                     fillerItem.withSlot(i);
-                    inventory.setItem(i, fillerItem.getItem());
+                    menuInventory.setItem(i, fillerStack);
                 }
 
                 fillerItem.setLocked(true);
@@ -540,7 +1098,7 @@ public class Menu implements InventoryHolder, Cloneable {
                 addItem(fillerItem);
             });
 
-            return Optional.of(new MenuInventory(inventory, title));
+            return Optional.of(menuInventory);
         } finally {
             writeLock.unlock();
         }
@@ -548,99 +1106,297 @@ public class Menu implements InventoryHolder, Cloneable {
 
     @Override
     public @NotNull Inventory getInventory() {
-        writeLock.lock();
-        try {
-            if (inventories.isEmpty()) {
-                generateInventories();
-            }
-
-            return inventories.getFirst().getInventory();
-        } finally {
-            writeLock.unlock();
-        }
+        ensureInventories();
+        return inventories.getFirst().getInventory();
     }
 
     public void open(@NonNull Player player, @NonNull JavaPlugin plugin, int page) {
-        writeLock.lock();
-        try {
-            if (inventories.isEmpty()) {
-                generateInventories();
-            }
+        ensureInventories();
 
-            if (page > inventories.size()) {
-                return;
-            }
-
-            MenuInventory inventory = inventories.get(page - 1);
-            Bukkit.getScheduler().runTaskLater(plugin, () -> player.openInventory(inventory.getInventory()), 1);
-        } finally {
-            writeLock.unlock();
+        if (page > inventories.size()) {
+            return;
         }
+
+        MenuInventory inventory = inventories.get(page - 1);
+        Bukkit.getScheduler().runTaskLater(plugin, () -> player.openInventory(inventory.getInventory()), 1);
     }
 
     public void open(@NonNull Player player, @NonNull JavaPlugin plugin) {
         open(player, plugin, 1);
     }
 
+    /**
+     * Get this menu's pages, generating them on first use. The
+     * list is safe to read and iterate from any thread.
+     *
+     * @return The pages of this menu.
+     */
     public List<MenuInventory> getInventories() {
+        ensureInventories();
+        return inventories;
+    }
+
+    /**
+     * @return Whether this menu has pages, without generating them.
+     */
+    public boolean hasInventories() {
+        return !inventories.isEmpty();
+    }
+
+    /**
+     * Generate and add a new page, if the page limit allows it.
+     *
+     * @return The new page.
+     */
+    public Optional<MenuInventory> addNewInventory() {
         writeLock.lock();
         try {
-            if (inventories.isEmpty()) {
-                generateInventories();
-            }
-
-            return inventories;
+            Optional<MenuInventory> generated = generateNewInventory();
+            generated.ifPresent(this::addInventory);
+            return generated;
         } finally {
             writeLock.unlock();
         }
     }
 
-    private void generateInventories() {
+    private void ensureInventories() {
+        if (inventoriesGenerated) {
+            return;
+        }
+
         writeLock.lock();
         try {
-            for (int i = 0; i < data.getMinInventories(); i++) {
-                generateNewInventory().ifPresent(inventories::add);
+            if (inventoriesGenerated) {
+                return;
+            }
+
+            if (inventories.isEmpty()) {
+                int pageCount = Math.max(data.getMinInventories(), unloadedPageCount);
+
+                for (int i = 0; i < pageCount; i++) {
+                    generateNewInventory().ifPresent(menuInventory -> {
+                        addInventory(menuInventory);
+                        restoreUnloadedPage(inventories.size() - 1, menuInventory);
+                    });
+                }
+
+                restoreUnloadedLeftovers();
             }
+
+            inventoriesGenerated = !inventories.isEmpty();
         } finally {
             writeLock.unlock();
         }
     }
 
-    public Inventory getGlobalMenu() {
+    /**
+     * Release every page of this menu while nobody views it. The
+     * pages are generated again on next use, with the items and
+     * stacks they held restored.
+     *
+     * @return Whether the pages were unloaded.
+     */
+    public boolean unloadInventories() {
+        ensureSlotIndex();
+
         writeLock.lock();
         try {
-            if (inventories.isEmpty()) {
-                generateInventories();
+            if (inventories.isEmpty() || viewerCount.get() > 0) {
+                return false;
+            }
+
+            for (MenuInventory menuInventory : inventories) {
+                if (!menuInventory.getInventory().getViewers().isEmpty()) {
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < inventories.size(); i++) {
+                MenuInventory menuInventory = inventories.get(i);
+                Inventory inventory = menuInventory.getInventory();
+
+                ItemStack[] contents = new ItemStack[inventory.getSize()];
+                boolean stored = false;
+
+                for (int slot = 0; slot < contents.length; slot++) {
+                    ItemStack item = inventory.getItem(slot);
+
+                    if (item == null || item.getType().isAir() || !menuInventory.getSlotItems(slot).isEmpty()) {
+                        continue;
+                    }
+
+                    contents[slot] = item;
+                    stored = true;
+                }
+
+                if (stored) {
+                    unloadedContents.put(i, contents);
+                }
+            }
+
+            List<MenuItem> pageBoundItems = new ArrayList<>(items);
+            pageBoundItems.addAll(data.getItemStorage());
+
+            for (MenuItem item : pageBoundItems) {
+                if (!item.isGlobal() && !item.isFiller() && !item.getId().equalsIgnoreCase(NEXT_PAGE_ITEM_ID)
+                        && !item.getId().equalsIgnoreCase(PREVIOUS_PAGE_ITEM_ID)) {
+                    for (Inventory inventory : item.getSourceInventories()) {
+                        MenuInventory menuInventory = inventoryLookup.get(inventory);
+
+                        if (menuInventory == null) {
+                            continue;
+                        }
+
+                        unloadedItemPages.computeIfAbsent(item, key -> new HashSet<>()).add(menuInventory.getPageIndex());
+                    }
+                }
+
+                item.removeSourceInventories(inventoryLookup::containsKey);
             }
 
-            return inventories.getFirst().getInventory();
+            unloadedPageCount = Math.max(unloadedPageCount, inventories.size());
+
+            MenuManager.getInstance().unregister(this);
+            inventories.clear();
+            inventoryLookup = new IdentityHashMap<>();
+            inventoriesGenerated = false;
+
+            dirtyItems.clear();
+            invalidateSlotIndex();
+            invalidate();
+            return true;
         } finally {
             writeLock.unlock();
         }
     }
 
-    public MenuInventory getMenuInventory(Inventory inventory) {
+    /**
+     * @return Whether this menu's pages are currently unloaded.
+     */
+    public boolean isUnloaded() {
+        return unloadedPageCount > 0 && inventories.isEmpty();
+    }
+
+    /**
+     * @return An estimate of what this menu currently keeps in memory.
+     */
+    public MenuMemoryReport getMemoryReport() {
         readLock.lock();
         try {
-            return inventories.stream().filter(mInventory -> mInventory.getInventory().equals(inventory)).findFirst().orElse(null);
+            int occupiedSlots = 0;
+
+            for (MenuInventory menuInventory : inventories) {
+                occupiedSlots += menuInventory.getOccupiedSlotCount();
+            }
+
+            int unloadedStacks = 0;
+
+            for (ItemStack[] contents : unloadedContents.values()) {
+                for (ItemStack item : contents) {
+                    if (item != null) {
+                        unloadedStacks++;
+                    }
+                }
+            }
+
+            int sourceReferences = 0;
+
+            for (MenuItem item : items) {
+                sourceReferences += item.getSourceInventories().size();
+            }
+
+            return new MenuMemoryReport(id, inventories.size(), isUnloaded() ? unloadedPageCount : 0, size, items.size(),
+                    data.getItemStorage().size(), sourceReferences, occupiedSlots, unloadedStacks);
         } finally {
             readLock.unlock();
         }
     }
 
-    public int getInventoryIndex(Inventory inventory) {
-        readLock.lock();
-        try {
-            MenuInventory menuInventory = getMenuInventory(inventory);
+    private void restoreUnloadedPage(int pageIndex, @NonNull MenuInventory menuInventory) {
+        Inventory inventory = menuInventory.getInventory();
 
-            if (menuInventory == null) {
-                return -1;
+        unloadedItemPages.entrySet().removeIf(entry -> {
+            if (!entry.getValue().remove(pageIndex)) {
+                return false;
             }
 
-            return inventories.indexOf(menuInventory);
-        } finally {
-            readLock.unlock();
+            MenuItem item = entry.getKey();
+
+            item.withSourceInventory(inventory);
+
+            return entry.getValue().isEmpty();
+        });
+
+        ItemStack[] contents = unloadedContents.get(pageIndex);
+
+        if (contents != null) {
+            for (int slot = 0; slot < contents.length; slot++) {
+                if (contents[slot] == null || inventory.getItem(slot) != null) {
+                    continue;
+                }
+
+                menuInventory.setItem(slot, contents[slot]);
+                contents[slot] = null;
+            }
+        }
+
+        menuInventory.setRenderPending(true);
+    }
+
+    private void restoreUnloadedLeftovers() {
+        List<ItemStack> leftovers = new ArrayList<>();
+
+        unloadedContents.values().forEach(contents -> {
+            for (ItemStack item : contents) {
+                if (item != null) {
+                    leftovers.add(item);
+                }
+            }
+        });
+
+        unloadedContents.clear();
+        unloadedItemPages.clear();
+        unloadedPageCount = 0;
+
+        if (leftovers.isEmpty()) {
+            return;
+        }
+
+        inventoriesGenerated = true;
+        addItemStacks(leftovers);
+    }
+
+    private void addInventory(@NonNull MenuInventory menuInventory) {
+        menuInventory.setPageIndex(inventories.size());
+        inventories.add(menuInventory);
+
+        registerInventory(menuInventory);
+
+        inventoriesGenerated = true;
+    }
+
+    private void registerInventory(@NonNull MenuInventory menuInventory) {
+        Map<Inventory, MenuInventory> lookup = new IdentityHashMap<>(inventoryLookup);
+        lookup.put(menuInventory.getInventory(), menuInventory);
+        inventoryLookup = lookup;
+    }
+
+    public Inventory getGlobalMenu() {
+        return getInventory();
+    }
+
+    public MenuInventory getMenuInventory(Inventory inventory) {
+        return inventoryLookup.get(inventory);
+    }
+
+    public int getInventoryIndex(Inventory inventory) {
+        MenuInventory menuInventory = getMenuInventory(inventory);
+
+        if (menuInventory == null) {
+            return -1;
         }
+
+        return menuInventory.getPageIndex();
     }
 
     public long getTotalCapacity() {
@@ -652,59 +1408,56 @@ public class Menu implements InventoryHolder, Cloneable {
     }
 
     public long getCurrentCapacity() {
-        readLock.lock();
-        try {
-            long currentCapacity = 0;
+        long currentCapacity = 0;
 
-            for (MenuInventory menuInventory : inventories) {
-                Inventory inventory = menuInventory.getInventory();
-
-                for (Integer validSlot : data.getValidSlots()) {
-                    ItemStack slotItem = inventory.getItem(validSlot);
+        for (MenuInventory menuInventory : inventories) {
+            currentCapacity += menuInventory.getStoredAmount();
+        }
 
-                    if (slotItem == null || slotItem.getType().isAir()) {
-                        continue;
+        readLock.lock();
+        try {
+            for (ItemStack[] contents : unloadedContents.values()) {
+                for (int slot = 0; slot < contents.length; slot++) {
+                    if (contents[slot] != null && data.getValidSlots().contains(slot)) {
+                        currentCapacity += contents[slot].getAmount();
                     }
-
-                    currentCapacity += slotItem.getAmount();
                 }
             }
-
-            return currentCapacity;
         } finally {
             readLock.unlock();
         }
+
+        return currentCapacity;
     }
 
-    public Pair<Inventory, Integer> getNextAvailableSlot() {
+    /**
+     * Get the first empty valid slot no item occupies, adding a
+     * page when every page is full.
+     *
+     * @return The page and slot, or null if the menu has no valid slots or no room left.
+     */
+    public @Nullable Pair<Inventory, Integer> getNextAvailableSlot() {
         writeLock.lock();
         try {
-            if (inventories.isEmpty()) {
-                generateInventories();
-            }
-
-            if(inventories.stream().noneMatch(MenuInventory::hasSpace)) {
-                Optional<MenuInventory> optionalMenuInventory = generateNewInventory();
-                optionalMenuInventory.ifPresent(inventories::add);
+            ensureInventories();
 
-                return optionalMenuInventory.map(menuInventory -> new Pair<>(menuInventory.getInventory(), data.getValidSlots().getFirst())).orElse(null);
+            if (data.getValidSlots().isEmpty()) {
+                return null;
             }
 
-            for (MenuInventory inventory : inventories) {
-                if (data.getValidSlots().stream().noneMatch(slot -> inventory.getInventory().getItem(slot) == null)) {
-                    continue;
-                }
+            if (inventories.stream().noneMatch(MenuInventory::hasSpace) && addNewInventory().isEmpty()) {
+                return null;
+            }
 
-                for (int validSlot : data.getValidSlots()) {
-                    if (inventory.getInventory().getItem(validSlot) != null) {
-                        continue;
-                    }
+            for (MenuInventory menuInventory : inventories) {
+                Inventory inventory = menuInventory.getInventory();
 
-                    if (getItem(inventory.getInventory(), validSlot).isPresent()) {
+                for (int slot = menuInventory.getNextFreeSlot(0); slot != -1; slot = menuInventory.getNextFreeSlot(slot + 1)) {
+                    if (getItem(inventory, slot).isPresent()) {
                         continue;
                     }
 
-                    return new Pair<>(inventory.getInventory(), validSlot);
+                    return new Pair<>(inventory, slot);
                 }
             }
 
@@ -715,9 +1468,12 @@ public class Menu implements InventoryHolder, Cloneable {
     }
 
     public HashMap<Inventory, HashMap<Integer, ItemStack>> getVanillaItems() {
+        ensureInventories();
+        ensureSlotIndex();
+
         readLock.lock();
         try {
-            if (inventories == null || inventories.isEmpty()) {
+            if (inventories.isEmpty()) {
                 return new HashMap<>();
             }
 
@@ -755,27 +1511,71 @@ public class Menu implements InventoryHolder, Cloneable {
         }
     }
 
+    /**
+     * Save the menu to its file unless the file exists. The file is
+     * written before this returns, use {@link #saveToFileAsync(File)}
+     * to write it in the background.
+     *
+     * @param directory The plugin's data folder.
+     */
     public void saveToFile(@NonNull File directory) {
-        File file = new File(directory, String.format(MENU_CONFIG_PATH, getId()));
+        File file = getSaveFile(directory);
 
         if(file.exists()) {
             return;
         }
 
-        File parent = file.getParentFile();
-
-        if (!parent.exists()) {
-            parent.mkdirs();
-        }
-
-        YamlConfiguration config = new YamlConfiguration();
-        SERIALIZER.serialize(config, this);
-
         try {
-            config.save(file);
+            MenuSaveQueue.writeAtomically(file.toPath(), snapshot(file).serialize());
         } catch (IOException e) {
             Bukkit.getLogger().warning("Failed to save menu '" + id + "'!");
             e.printStackTrace();
+        } finally {
+            MenuTemplateCache.getInstance().invalidate(file);
+        }
+    }
+
+    /**
+     * Save the menu to its file, replacing it. The menu's state is
+     * captured right away, serializing and writing happen in the
+     * background and are merged with other saves of the same menu.
+     *
+     * @param directory The plugin's data folder.
+     * @return A future completed once the file has been written.
+     */
+    public CompletableFuture<Void> saveToFileAsync(@NonNull File directory) {
+        File file = getSaveFile(directory);
+
+        return MenuSaveQueue.getInstance().save(file.toPath(), snapshot(file))
+                .whenComplete((ignored, throwable) -> MenuTemplateCache.getInstance().invalidate(file));
+    }
+
+    /**
+     * The file this menu is saved to, its binary file if one exists,
+     * as that's the file {@link #getFromFile(File, String)} loads.
+     */
+    private File getSaveFile(@NonNull File directory) {
+        File binaryFile = new File(directory, String.format(BINARY_MENU_PATH, getId()));
+        return binaryFile.isFile() ? binaryFile : new File(directory, String.format(MENU_CONFIG_PATH, getId()));
+    }
+
+    /**
+     * Capture this menu's state in the format of the provided file.
+     */
+    private MenuSaveQueue.Snapshot snapshot(@NonNull File file) {
+        readLock.lock();
+        try {
+            if (file.getName().endsWith(MenuFormatConverter.BINARY_EXTENSION)) {
+                byte[] bytes = CODEC.encode(this);
+                return () -> bytes;
+            }
+
+            YamlConfiguration config = new YamlConfiguration();
+            SERIALIZER.serialize(config, this);
+
+            return () -> config.saveToString().getBytes(StandardCharsets.UTF_8);
+        } finally {
+            readLock.unlock();
         }
     }
 
@@ -810,7 +1610,9 @@ public class Menu implements InventoryHolder, Cloneable {
         try {
             List<MenuItem> items = new ArrayList<>();
             this.items.forEach(item -> items.add(item.clone()));
-            return new Menu(id, title, size, data.clone(), items, new ArrayList<>());
+            Menu menu = new Menu(id, title, size, data.clone(), items, new ArrayList<>());
+            menu.setBatchItemProvider(batchItemProvider);
+            return menu;
         } finally {
             readLock.unlock();
         }
@@ -15,6 +15,11 @@ public enum MenuFlag {
      */
     DISABLE_TITLE_UPDATE,
     DISABLE_UPDATES,
+    /**
+     * Re-renders every item on each update instead of only the
+     * items that were invalidated since the previous update
+     */
+    FULL_REFRESH,
     /**
      * Forces the inventory to always display its navigation items
      */
@@ -0,0 +1,108 @@
+package net.bitbylogic.menus;
+
+import lombok.NonNull;
+import net.bitbylogic.menus.inventory.MenuInventory;
+import net.bitbylogic.menus.task.MenuMutationQueue;
+import net.bitbylogic.menus.task.MenuSaveQueue;
+import net.bitbylogic.menus.task.MenuScheduler;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.Inventory;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the menu pages players are viewing, resolving an
+ * inventory to its menu and page index with a single lookup.
+ * <p>
+ * A page is registered when it gains its first viewer and removed
+ * when its last viewer leaves, so the registry never keeps a menu
+ * nobody is looking at reachable. Lookups never lock.
+ */
+public final class MenuManager {
+
+    private static final MenuManager INSTANCE = new MenuManager();
+
+    private final Map<Inventory, MenuInventory> pages = new ConcurrentHashMap<>();
+
+    private MenuManager() {
+    }
+
+    public static MenuManager getInstance() {
+        return INSTANCE;
+    }
+
+    public @Nullable MenuInventory getPage(@Nullable Inventory inventory) {
+        return inventory == null ? null : pages.get(inventory);
+    }
+
+    public @Nullable Menu getMenu(@Nullable Inventory inventory) {
+        MenuInventory page = getPage(inventory);
+        return page == null ? null : page.getMenu();
+    }
+
+    /**
+     * @param inventory The page inventory.
+     * @return The page's index in its menu, or -1 if it isn't a menu page.
+     */
+    public int getPageIndex(@Nullable Inventory inventory) {
+        MenuInventory page = getPage(inventory);
+        return page == null ? -1 : page.getPageIndex();
+    }
+
+    /**
+     * @return Every menu with viewed pages.
+     */
+    public Set<Menu> getMenus() {
+        Set<Menu> menus = Collections.newSetFromMap(new IdentityHashMap<>());
+        pages.values().forEach(page -> menus.add(page.getMenu()));
+        return menus;
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    public void register(@NonNull MenuInventory page) {
+        pages.put(page.getInventory(), page);
+    }
+
+    public void unregister(@NonNull MenuInventory page) {
+        pages.remove(page.getInventory(), page);
+    }
+
+    public void unregister(@NonNull Menu menu) {
+        pages.values().removeIf(page -> page.getMenu() == menu);
+    }
+
+    /**
+     * Apply queued menu changes, close every menu page, stop every
+     * menu task, write pending saves and clear the registry, meant
+     * to be called when the plugin disables.
+     */
+    public void shutdown() {
+        MenuMutationQueue.shutdownInstance();
+
+        List<MenuInventory> viewedPages = new ArrayList<>(pages.values());
+        Set<Menu> menus = getMenus();
+
+        pages.clear();
+
+        for (Menu menu : menus) {
+            menu.getUpdateTask().cancelTask();
+
+            if (menu.getTitleUpdateTask() != null) {
+                menu.getTitleUpdateTask().cancel();
+            }
+        }
+
+        for (MenuInventory page : viewedPages) {
+            new ArrayList<>(page.getInventory().getViewers()).forEach(HumanEntity::closeInventory);
+        }
+
+        MenuScheduler.shutdownInstance();
+        MenuSaveQueue.shutdownInstance();
+    }
+
+}
@@ -3,6 +3,7 @@ package net.bitbylogic.menus;
 import lombok.NonNull;
 import net.bitbylogic.menus.data.MenuData;
 import net.bitbylogic.menus.item.MenuItem;
+import net.bitbylogic.menus.task.MenuScheduler;
 import net.bitbylogic.utils.config.ConfigSerializer;
 import net.bitbylogic.utils.message.MessageUtil;
 import org.bukkit.configuration.ConfigurationSection;
@@ -25,6 +26,7 @@ public class MenuSerializer implements ConfigSerializer<Menu> {
         MenuData data = builder.getData();
 
         data.getValidSlots().addAll(section.getIntegerList("Valid-Slots"));
+        data.withUpdatePeriod(section.getInt("Update-Period", MenuScheduler.DEFAULT_UPDATE_PERIOD));
 
         ConfigurationSection metaDataSection = section.getConfigurationSection("Metadata");
 
@@ -69,6 +71,10 @@ public class MenuSerializer implements ConfigSerializer<Menu> {
             section.set("Valid-Slots", menuData.getValidSlots());
         }
 
+        if(menuData.getUpdatePeriod() != MenuScheduler.DEFAULT_UPDATE_PERIOD) {
+            section.set("Update-Period", menuData.getUpdatePeriod());
+        }
+
         menuData.getMetadata().forEach((s, object) -> {
             section.set("Metadata." + s, object);
         });
@@ -0,0 +1,150 @@
+package net.bitbylogic.menus.action;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.utils.RichTextUtil;
+import net.bitbylogic.utils.message.MessageUtil;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+import java.util.List;
+
+/**
+ * An {@link InternalClickAction} with its arguments parsed ahead
+ * of time. Commands are split around their player placeholders and
+ * messages are deserialized once, so a click only fills in the
+ * player's name.
+ */
+@Getter
+public final class CompiledClickAction {
+
+    private static final String PLAYER_PLACEHOLDER = "%player%";
+    private static final String PLAYER_MARKER = "\uE002";
+
+    /**
+     * Strips the marker, a message it changes contains the player's name
+     * in some form, {@code <player>} or {@code <player/>}.
+     */
+    private static final TextReplacementConfig MARKER_PROBE = TextReplacementConfig.builder()
+            .matchLiteral(PLAYER_MARKER).replacement("").build();
+
+    private final InternalClickAction type;
+    private final String args;
+
+    /**
+     * The commands to run, each split around its player placeholders.
+     */
+    private final String[][] commands;
+
+    /**
+     * The deserialized messages, with a marker where the player's name goes.
+     */
+    private final Component[] messages;
+    private final boolean[] messageHasPlayer;
+
+    private CompiledClickAction(@NonNull InternalClickAction type, @NonNull String args, @NonNull String[][] commands,
+                                @NonNull Component[] messages, @NonNull boolean[] messageHasPlayer) {
+        this.type = type;
+        this.args = args;
+        this.commands = commands;
+        this.messages = messages;
+        this.messageHasPlayer = messageHasPlayer;
+    }
+
+    /**
+     * Parse an action's arguments.
+     *
+     * @param type The action type.
+     * @param args The raw arguments.
+     * @return The compiled action.
+     * @throws IllegalArgumentException If the action needs arguments and has none.
+     */
+    public static CompiledClickAction compile(@NonNull InternalClickAction type, @NonNull String args) {
+        if (type == InternalClickAction.CLOSE_INVENTORY) {
+            return new CompiledClickAction(type, args, new String[0][], new Component[0], new boolean[0]);
+        }
+
+        List<String> lines = RichTextUtil.getRichText(args, 0);
+
+        if (lines.stream().allMatch(String::isBlank)) {
+            throw new IllegalArgumentException("Action " + type.name() + " requires arguments");
+        }
+
+        if (type != InternalClickAction.SEND_MESSAGE) {
+            String[][] commands = new String[lines.size()][];
+
+            for (int i = 0; i < commands.length; i++) {
+                commands[i] = lines.get(i).split(PLAYER_PLACEHOLDER, -1);
+            }
+
+            return new CompiledClickAction(type, args, commands, new Component[0], new boolean[0]);
+        }
+
+        Component[] messages = new Component[lines.size()];
+        boolean[] messageHasPlayer = new boolean[messages.length];
+
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = MessageUtil.deserialize(lines.get(i), Placeholder.unparsed("player", PLAYER_MARKER));
+            messageHasPlayer[i] = !messages[i].equals(messages[i].replaceText(MARKER_PROBE));
+        }
+
+        return new CompiledClickAction(type, args, new String[0][], messages, messageHasPlayer);
+    }
+
+    public void onClick(@NonNull InventoryClickEvent event) {
+        String playerName = event.getWhoClicked().getName();
+
+        switch (type) {
+            case RUN_CONSOLE_COMMAND -> {
+                for (String[] command : commands) {
+                    Bukkit.dispatchCommand(Bukkit.getConsoleSender(), fill(command, playerName));
+                }
+            }
+            case RUN_PLAYER_COMMAND -> {
+                for (String[] command : commands) {
+                    ((Player) event.getWhoClicked()).performCommand(fill(command, playerName));
+                }
+            }
+            case SEND_MESSAGE -> {
+                TextReplacementConfig replacement = null;
+
+                for (int i = 0; i < messages.length; i++) {
+                    if (!messageHasPlayer[i]) {
+                        MessageUtil.send(event.getWhoClicked(), messages[i]);
+                        continue;
+                    }
+
+                    if (replacement == null) {
+                        replacement = TextReplacementConfig.builder().matchLiteral(PLAYER_MARKER).replacement(playerName).build();
+                    }
+
+                    MessageUtil.send(event.getWhoClicked(), messages[i].replaceText(replacement));
+                }
+            }
+            case CLOSE_INVENTORY -> event.getWhoClicked().closeInventory();
+        }
+    }
+
+    private static String fill(@NonNull String[] fragments, @NonNull String playerName) {
+        if (fragments.length == 1) {
+            return fragments[0];
+        }
+
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < fragments.length; i++) {
+            if (i > 0) {
+                builder.append(playerName);
+            }
+
+            builder.append(fragments[i]);
+        }
+
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,500 @@
+package net.bitbylogic.menus.codec;
+
+import lombok.NonNull;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.MenuFlag;
+import net.bitbylogic.menus.action.InternalClickAction;
+import net.bitbylogic.menus.data.MenuData;
+import net.bitbylogic.menus.item.MenuItem;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A versioned binary format for menus, their data and items,
+ * faster to read than YAML for large menus.
+ * <p>
+ * Item stacks and other serializable values are written as their
+ * {@link ConfigurationSerializable} maps, so they keep their full
+ * meta. Repeated strings, like meta keys, are written once and
+ * referenced afterwards. Click actions, requirements and placeholders
+ * are code, not data, and aren't written, same as with YAML.
+ */
+public class MenuBinaryCodec {
+
+    public static final int MAGIC = 0x424D4E55;
+    public static final int VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte SHORT = 7;
+    private static final byte BYTE = 8;
+    private static final byte LIST = 9;
+    private static final byte MAP = 10;
+
+    private static final int FILLER = 1;
+    private static final int UPDATABLE = 1 << 1;
+    private static final int LOCKED = 1 << 2;
+    private static final int GLOBAL = 1 << 3;
+    private static final int SAVE_SLOTS = 1 << 4;
+    private static final int SAVED = 1 << 5;
+
+    /**
+     * Limits applied while reading, so a corrupt or hostile file
+     * fails with an {@link IOException} instead of exhausting memory.
+     */
+    private static final int MAX_STRING_BYTES = 1 << 22;
+    private static final int MAX_ELEMENTS = 1 << 16;
+    private static final int MAX_DEPTH = 64;
+
+    private static final TimeUnit[] TIME_UNITS = TimeUnit.values();
+
+    public byte[] encode(@NonNull Menu menu) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+
+        try {
+            write(menu, bytes);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public Menu decode(byte @NonNull [] bytes) throws IOException {
+        return read(new ByteArrayInputStream(bytes));
+    }
+
+    public void write(@NonNull Menu menu, @NonNull OutputStream outputStream) throws IOException {
+        Writer writer = new Writer(new DataOutputStream(new BufferedOutputStream(outputStream)));
+
+        writer.out.writeInt(MAGIC);
+        writer.out.writeShort(VERSION);
+
+        writeMenu(writer, menu);
+        writer.out.flush();
+    }
+
+    /**
+     * Read a menu, any malformed input fails with an {@link IOException}.
+     *
+     * @param inputStream The stream to read from.
+     * @return The menu.
+     * @throws IOException If the stream can't be read or doesn't hold a valid menu.
+     */
+    public Menu read(@NonNull InputStream inputStream) throws IOException {
+        Reader reader = new Reader(new DataInputStream(new BufferedInputStream(inputStream)));
+
+        if (reader.in.readInt() != MAGIC) {
+            throw new IOException("Not a binary menu file");
+        }
+
+        int version = reader.in.readUnsignedShort();
+
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary menu version " + version);
+        }
+
+        try {
+            return readMenu(reader);
+        } catch (RuntimeException | StackOverflowError exception) {
+            throw new IOException("Invalid binary menu: " + exception.getMessage(), exception);
+        }
+    }
+
+    private void writeMenu(@NonNull Writer writer, @NonNull Menu menu) throws IOException {
+        writer.writeString(menu.getId());
+        writer.writeString(menu.getTitle());
+        writer.out.writeInt(menu.getSize());
+
+        writeData(writer, menu.getData());
+
+        List<MenuItem> items = menu.getItemsSnapshot();
+        writer.out.writeInt(items.size());
+
+        for (MenuItem item : items) {
+            writeItem(writer, item);
+        }
+    }
+
+    private Menu readMenu(@NonNull Reader reader) throws IOException {
+        String id = reader.readString();
+        String title = reader.readString();
+        int size = reader.in.readInt();
+
+        if (size <= 0 || size > 54 || size % 9 != 0) {
+            throw new IOException("Invalid menu size " + size);
+        }
+
+        Menu menu = new Menu(id, title, size, readData(reader));
+        int itemCount = reader.readCount();
+
+        for (int i = 0; i < itemCount; i++) {
+            menu.addItem(readItem(reader));
+        }
+
+        return menu;
+    }
+
+    private void writeData(@NonNull Writer writer, @NonNull MenuData data) throws IOException {
+        writer.out.writeInt(data.getMinInventories());
+        writer.out.writeInt(data.getMaxInventories());
+        writer.out.writeInt(data.getUpdatePeriod());
+
+        writer.writeInts(data.getValidSlots());
+
+        writer.out.writeInt(data.getFlags().size());
+
+        for (MenuFlag flag : data.getFlags()) {
+            writer.writeString(flag.name());
+        }
+
+        writer.writeValue(new LinkedHashMap<>(data.getMetadata()));
+
+        writer.out.writeInt(data.getItemStorage().size());
+
+        for (MenuItem item : data.getItemStorage()) {
+            writeItem(writer, item);
+        }
+    }
+
+    private MenuData readData(@NonNull Reader reader) throws IOException {
+        MenuData data = new MenuData()
+                .withMinInventories(reader.in.readInt())
+                .withMaxInventories(reader.in.readInt())
+                .withUpdatePeriod(reader.in.readInt());
+
+        data.getValidSlots().addAll(reader.readInts());
+
+        int flagCount = reader.readCount();
+
+        for (int i = 0; i < flagCount; i++) {
+            data.withFlag(MenuFlag.valueOf(reader.readString()));
+        }
+
+        reader.readMap().forEach(data::withMetadata);
+
+        int storedCount = reader.readCount();
+
+        for (int i = 0; i < storedCount; i++) {
+            data.withStoredItem(readItem(reader));
+        }
+
+        return data;
+    }
+
+    private void writeItem(@NonNull Writer writer, @NonNull MenuItem item) throws IOException {
+        writer.writeString(item.getId());
+
+        int flags = (item.isFiller() ? FILLER : 0)
+                | (item.isUpdatable() ? UPDATABLE : 0)
+                | (item.isLocked() ? LOCKED : 0)
+                | (item.isGlobal() ? GLOBAL : 0)
+                | (item.isSaveSlots() ? SAVE_SLOTS : 0)
+                | (item.isSaved() ? SAVED : 0);
+
+        writer.out.writeByte(flags);
+        writer.writeInts(item.getSlots());
+
+        writer.out.writeInt(item.getInternalActions().size());
+
+        for (Map.Entry<InternalClickAction, String> action : item.getInternalActions().entrySet()) {
+            writer.writeString(action.getKey().name());
+            writer.writeString(action.getValue());
+        }
+
+        writer.writeValue(new LinkedHashMap<>(item.getMetadata()));
+
+        writer.out.writeInt(item.getClickCooldownTime());
+        writer.out.writeByte(item.getClickCooldownUnit().ordinal());
+
+        writer.writeValue(item.getItem());
+    }
+
+    private MenuItem readItem(@NonNull Reader reader) throws IOException {
+        MenuItem item = new MenuItem(reader.readString());
+        int flags = reader.in.readUnsignedByte();
+
+        item.setLocked(false);
+        item.withSlots(reader.readInts());
+
+        int actionCount = reader.readCount();
+
+        for (int i = 0; i < actionCount; i++) {
+            item.withInternalAction(InternalClickAction.valueOf(reader.readString()), reader.readString());
+        }
+
+        reader.readMap().forEach(item::withMetadata);
+
+        item.withClickCooldownTime(reader.in.readInt());
+
+        int unit = reader.in.readUnsignedByte();
+
+        if (unit >= TIME_UNITS.length) {
+            throw new IOException("Invalid cooldown unit " + unit + " for item '" + item.getId() + "'");
+        }
+
+        item.withClickCooldownUnit(TIME_UNITS[unit]);
+
+        Object stack = reader.readValue();
+
+        if (stack != null && !(stack instanceof ItemStack)) {
+            throw new IOException("Item '" + item.getId() + "' doesn't hold an item stack");
+        }
+
+        item.item((ItemStack) stack)
+                .filler((flags & FILLER) != 0)
+                .updatable((flags & UPDATABLE) != 0)
+                .saveSlots((flags & SAVE_SLOTS) != 0)
+                .saved((flags & SAVED) != 0);
+
+        item.setGlobal((flags & GLOBAL) != 0);
+        item.getCompiledActions();
+        item.setLocked((flags & LOCKED) != 0);
+        return item;
+    }
+
+    private static class Writer {
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private Writer(@NonNull DataOutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Write a string, or a reference to it if it was written before.
+         */
+        private void writeString(@NonNull String value) throws IOException {
+            Integer reference = strings.get(value);
+
+            if (reference != null) {
+                out.writeInt(-1 - reference);
+                return;
+            }
+
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            strings.put(value, strings.size());
+        }
+
+        private void writeInts(@NonNull List<Integer> values) throws IOException {
+            out.writeInt(values.size());
+
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+
+        private void writeValue(@Nullable Object value) throws IOException {
+            switch (value) {
+                case null -> out.writeByte(NULL);
+                case String string -> {
+                    out.writeByte(STRING);
+                    writeString(string);
+                }
+                case Integer number -> {
+                    out.writeByte(INT);
+                    out.writeInt(number);
+                }
+                case Long number -> {
+                    out.writeByte(LONG);
+                    out.writeLong(number);
+                }
+                case Double number -> {
+                    out.writeByte(DOUBLE);
+                    out.writeDouble(number);
+                }
+                case Float number -> {
+                    out.writeByte(FLOAT);
+                    out.writeFloat(number);
+                }
+                case Boolean bool -> {
+                    out.writeByte(BOOLEAN);
+                    out.writeBoolean(bool);
+                }
+                case Short number -> {
+                    out.writeByte(SHORT);
+                    out.writeShort(number);
+                }
+                case Byte number -> {
+                    out.writeByte(BYTE);
+                    out.writeByte(number);
+                }
+                case Collection<?> collection -> {
+                    out.writeByte(LIST);
+                    out.writeInt(collection.size());
+
+                    for (Object element : collection) {
+                        writeValue(element);
+                    }
+                }
+                case Map<?, ?> map -> {
+                    out.writeByte(MAP);
+                    out.writeInt(map.size());
+
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        writeString(String.valueOf(entry.getKey()));
+                        writeValue(entry.getValue());
+                    }
+                }
+                case ConfigurationSection section -> writeValue(section.getValues(false));
+                case ConfigurationSerializable serializable -> {
+                    Map<String, Object> map = new LinkedHashMap<>();
+
+                    map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, ConfigurationSerialization.getAlias(serializable.getClass()));
+                    map.putAll(serializable.serialize());
+
+                    writeValue(map);
+                }
+                default -> throw new IOException("Unsupported value type " + value.getClass().getName());
+            }
+        }
+
+    }
+
+    private static class Reader {
+
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        private int depth;
+
+        private Reader(@NonNull DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Read an element count, rejecting negative and oversized ones.
+         */
+        private int readCount() throws IOException {
+            int count = in.readInt();
+
+            if (count < 0 || count > MAX_ELEMENTS) {
+                throw new IOException("Invalid element count " + count);
+            }
+
+            return count;
+        }
+
+        private String readString() throws IOException {
+            int length = in.readInt();
+
+            if (length < 0) {
+                int reference = -1 - length;
+
+                if (reference >= strings.size()) {
+                    throw new IOException("Invalid string reference " + reference);
+                }
+
+                return strings.get(reference);
+            }
+
+            if (length > MAX_STRING_BYTES) {
+                throw new IOException("String of " + length + " bytes exceeds the limit");
+            }
+
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        private List<Integer> readInts() throws IOException {
+            int size = readCount();
+            List<Integer> values = new ArrayList<>(Math.min(size, 64));
+
+            for (int i = 0; i < size; i++) {
+                values.add(in.readInt());
+            }
+
+            return values;
+        }
+
+        private Map<String, Object> readMap() throws IOException {
+            if (!(readValue() instanceof Map<?, ?> map)) {
+                throw new IOException("Expected metadata map");
+            }
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            map.forEach((key, value) -> values.put((String) key, value));
+            return values;
+        }
+
+        private @Nullable Object readValue() throws IOException {
+            if (++depth > MAX_DEPTH) {
+                throw new IOException("Values nested deeper than " + MAX_DEPTH);
+            }
+
+            try {
+                return readValue(in.readByte());
+            } finally {
+                depth--;
+            }
+        }
+
+        private @Nullable Object readValue(byte type) throws IOException {
+            return switch (type) {
+                case NULL -> null;
+                case STRING -> readString();
+                case INT -> in.readInt();
+                case LONG -> in.readLong();
+                case DOUBLE -> in.readDouble();
+                case FLOAT -> in.readFloat();
+                case BOOLEAN -> in.readBoolean();
+                case SHORT -> in.readShort();
+                case BYTE -> in.readByte();
+                case LIST -> {
+                    int size = readCount();
+                    List<Object> list = new ArrayList<>(Math.min(size, 64));
+
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+
+                    yield list;
+                }
+                case MAP -> {
+                    int size = readCount();
+                    Map<String, Object> map = new LinkedHashMap<>();
+
+                    for (int i = 0; i < size; i++) {
+                        map.put(readString(), readValue());
+                    }
+
+                    if (!map.containsKey(ConfigurationSerialization.SERIALIZED_TYPE_KEY)) {
+                        yield map;
+                    }
+
+                    ConfigurationSerializable value = ConfigurationSerialization.deserializeObject(map);
+
+                    if (value == null) {
+                        throw new IOException("Unknown serialized type " + map.get(ConfigurationSerialization.SERIALIZED_TYPE_KEY));
+                    }
+
+                    yield value;
+                }
+                default -> throw new IOException("Unknown value type " + type);
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+package net.bitbylogic.menus.codec;
+
+import lombok.NonNull;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.MenuSerializer;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts menu files between YAML and the binary format of
+ * {@link MenuBinaryCodec}.
+ */
+public class MenuFormatConverter {
+
+    public static final String YAML_EXTENSION = ".yml";
+    public static final String BINARY_EXTENSION = ".bmenu";
+
+    private static final MenuSerializer SERIALIZER = new MenuSerializer();
+    private static final MenuBinaryCodec CODEC = new MenuBinaryCodec();
+
+    /**
+     * Read a YAML menu file and write it in the binary format. The
+     * YAML file is kept, but once the binary file exists it's the one
+     * {@link Menu#getFromFile} loads and saves go to.
+     *
+     * @param yamlFile The YAML menu file.
+     * @param binaryFile The binary file to write.
+     * @throws IOException If a file can't be read or written.
+     * @throws InvalidConfigurationException If the YAML file doesn't define a valid menu.
+     */
+    public static void toBinary(@NonNull Path yamlFile, @NonNull Path binaryFile) throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.loadFromString(Files.readString(yamlFile));
+
+        Menu menu = Menu.getFromConfig(config)
+                .orElseThrow(() -> new InvalidConfigurationException("No menu defined in " + yamlFile.getFileName()));
+
+        createParent(binaryFile);
+
+        try (OutputStream outputStream = Files.newOutputStream(binaryFile)) {
+            CODEC.write(menu, outputStream);
+        }
+    }
+
+    /**
+     * Read a binary menu file and write it as YAML.
+     *
+     * @param binaryFile The binary menu file.
+     * @param yamlFile The YAML file to write.
+     * @throws IOException If a file can't be read or written, or the binary file is invalid.
+     */
+    public static void toYaml(@NonNull Path binaryFile, @NonNull Path yamlFile) throws IOException {
+        Menu menu;
+
+        try (InputStream inputStream = Files.newInputStream(binaryFile)) {
+            menu = CODEC.read(inputStream);
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        SERIALIZER.serialize(config, menu);
+
+        createParent(yamlFile);
+        Files.writeString(yamlFile, config.saveToString());
+    }
+
+    /**
+     * Get the path of a menu file with another extension.
+     *
+     * @param file The menu file.
+     * @param extension The new extension, including the dot.
+     * @return The path next to the file with the new extension.
+     */
+    public static Path withExtension(@NonNull Path file, @NonNull String extension) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+
+        return file.resolveSibling((dot == -1 ? name : name.substring(0, dot)) + extension);
+    }
+
+    private static void createParent(@NonNull Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+}
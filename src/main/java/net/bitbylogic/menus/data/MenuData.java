@@ -5,6 +5,8 @@ import net.bitbylogic.menus.MenuCloseAction;
 import net.bitbylogic.menus.MenuFlag;
 import net.bitbylogic.menus.action.ClickAction;
 import net.bitbylogic.menus.item.MenuItem;
+import net.bitbylogic.menus.item.MenuItemRegistry;
+import net.bitbylogic.menus.task.MenuScheduler;
 import net.bitbylogic.utils.GenericHashMap;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 import org.jetbrains.annotations.Nullable;
@@ -15,8 +17,6 @@ import java.util.Optional;
 
 @Getter
 @Setter
-@AllArgsConstructor
-@RequiredArgsConstructor
 public class MenuData implements Cloneable {
 
     private @Nullable MenuCloseAction closeAction;
@@ -26,7 +26,10 @@ public class MenuData implements Cloneable {
     private int minInventories = 1;
     private int maxInventories = -1;
 
-    private final @NonNull List<MenuItem> itemStorage;
+    private int updatePeriod = MenuScheduler.DEFAULT_UPDATE_PERIOD;
+
+    @Getter(AccessLevel.NONE)
+    private final @NonNull MenuItemRegistry itemStorage;
     private final @NonNull List<MenuFlag> flags;
     private final @NonNull List<Integer> validSlots;
 
@@ -34,8 +37,16 @@ public class MenuData implements Cloneable {
 
     private final @NonNull GenericHashMap<String, Object> metadata;
 
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long placeholderVersion;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int placeholderFingerprint;
+
     public MenuData() {
-        this.itemStorage = new ArrayList<>();
+        this.itemStorage = new MenuItemRegistry();
         this.flags = new ArrayList<>();
         this.validSlots = new ArrayList<>();
 
@@ -44,6 +55,35 @@ public class MenuData implements Cloneable {
         this.metadata = new GenericHashMap<>();
     }
 
+    public MenuData(@NonNull List<MenuItem> itemStorage, @NonNull List<MenuFlag> flags, @NonNull List<Integer> validSlots,
+                    @NonNull List<TagResolver.Single> placeholders, @NonNull GenericHashMap<String, Object> metadata) {
+        this.itemStorage = MenuItemRegistry.backedBy(itemStorage);
+        this.flags = flags;
+        this.validSlots = validSlots;
+        this.placeholders = placeholders;
+        this.metadata = metadata;
+    }
+
+    public MenuData(@Nullable MenuCloseAction closeAction, @Nullable ClickAction externalClickAction, @Nullable ClickAction clickAction,
+                    int minInventories, int maxInventories, @NonNull List<MenuItem> itemStorage, @NonNull List<MenuFlag> flags,
+                    @NonNull List<Integer> validSlots, @NonNull List<TagResolver.Single> placeholders,
+                    @NonNull GenericHashMap<String, Object> metadata) {
+        this(itemStorage, flags, validSlots, placeholders, metadata);
+
+        this.closeAction = closeAction;
+        this.externalClickAction = externalClickAction;
+        this.clickAction = clickAction;
+        this.minInventories = minInventories;
+        this.maxInventories = maxInventories;
+    }
+
+    /**
+     * @return The items stored outside the menu's pages, changes to the list are reflected in the menu.
+     */
+    public List<MenuItem> getItemStorage() {
+        return itemStorage;
+    }
+
     public MenuData withCloseAction(@NonNull MenuCloseAction closeAction) {
         this.closeAction = closeAction;
         return this;
@@ -69,6 +109,11 @@ public class MenuData implements Cloneable {
         return this;
     }
 
+    public MenuData withUpdatePeriod(int updatePeriod) {
+        this.updatePeriod = Math.max(1, updatePeriod);
+        return this;
+    }
+
     public MenuData withStoredItem(@NonNull MenuItem menuItem) {
         this.itemStorage.add(menuItem);
         return this;
@@ -96,11 +141,13 @@ public class MenuData implements Cloneable {
 
     public MenuData withModifier(@NonNull TagResolver.Single modifier) {
         this.placeholders.add(modifier);
+        this.placeholderVersion++;
         return this;
     }
 
     public MenuData withPlaceholders(@NonNull List<TagResolver.Single> modifiers) {
         this.placeholders.addAll(modifiers);
+        this.placeholderVersion++;
         return this;
     }
 
@@ -120,14 +167,54 @@ public class MenuData implements Cloneable {
 
     public void addPlaceholder(@NonNull TagResolver.Single placeholder) {
         placeholders.add(placeholder);
+        placeholderVersion++;
+    }
+
+    /**
+     * Replace any placeholder sharing the provided placeholder's
+     * key, or add it if none exists.
+     *
+     * @param placeholder The placeholder to set.
+     */
+    public void setPlaceholder(@NonNull TagResolver.Single placeholder) {
+        placeholders.removeIf(existing -> existing.key().equals(placeholder.key()));
+        placeholders.add(placeholder);
+        placeholderVersion++;
+    }
+
+    public void removePlaceholder(@NonNull String key) {
+        if (placeholders.removeIf(existing -> existing.key().equals(key))) {
+            placeholderVersion++;
+        }
+    }
+
+    /**
+     * Get a counter that changes whenever the placeholders change,
+     * including changes made directly to {@link #getPlaceholders()}.
+     *
+     * @return The current placeholder version.
+     */
+    public long getPlaceholderVersion() {
+        int fingerprint = placeholders.size();
+
+        for (TagResolver.Single placeholder : placeholders) {
+            fingerprint = 31 * fingerprint + System.identityHashCode(placeholder);
+        }
+
+        if (fingerprint != placeholderFingerprint) {
+            placeholderFingerprint = fingerprint;
+            placeholderVersion++;
+        }
+
+        return placeholderVersion;
     }
 
     public Optional<MenuItem> getStoredItem(String id) {
-        return itemStorage.stream().filter(item -> item.getId().equalsIgnoreCase(id)).findFirst();
+        return itemStorage.getById(id);
     }
 
     public MenuItem getStoredItemOrCreate(String id) {
-        Optional<MenuItem> optionalItem = itemStorage.stream().filter(item -> item.getId().equalsIgnoreCase(id)).findFirst();
+        Optional<MenuItem> optionalItem = itemStorage.getById(id);
 
         if(optionalItem.isPresent()) {
             return optionalItem.get();
@@ -140,7 +227,7 @@ public class MenuData implements Cloneable {
     }
 
     public Optional<MenuItem> getFillerItem() {
-        return itemStorage.stream().filter(MenuItem::isFiller).findFirst();
+        return itemStorage.getFillerItem();
     }
 
     @Override
@@ -153,6 +240,6 @@ public class MenuData implements Cloneable {
 
         return new MenuData(closeAction, externalClickAction, clickAction, minInventories,
                 maxInventories, itemStorage, new ArrayList<>(flags), new ArrayList<>(validSlots),
-                new ArrayList<>(placeholders), metadata);
+                new ArrayList<>(placeholders), metadata).withUpdatePeriod(updatePeriod);
     }
 }
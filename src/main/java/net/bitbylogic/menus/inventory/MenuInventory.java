@@ -1,24 +1,502 @@
 package net.bitbylogic.menus.inventory;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
 import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.item.BatchMenuItemUpdateProvider;
+import net.bitbylogic.menus.item.MenuItem;
+import org.bukkit.Bukkit;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 @Getter @Setter
-@AllArgsConstructor
 public class MenuInventory {
 
     private final Inventory inventory;
     private String title;
 
+    /**
+     * The index of this page in its menu.
+     */
+    private int pageIndex = -1;
+
+    /**
+     * The last title rendered for this page and the
+     * template it was rendered from.
+     */
+    private @Nullable String renderedTitle;
+    private @Nullable String renderedTemplate;
+
+    /**
+     * The players viewing this page.
+     */
+    @Setter(AccessLevel.NONE)
+    private final Set<UUID> viewers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether renders were skipped while nobody viewed this page.
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile boolean renderPending;
+
+    /**
+     * Batch provider for this page, overrides the menu's provider.
+     */
+    private @Nullable BatchMenuItemUpdateProvider batchItemProvider;
+
+    /**
+     * Slot table for this page, each entry holds the items
+     * occupying that slot in insertion order. Entries are
+     * immutable and replaced on write so lookups never copy.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final List<MenuItem>[] slotItems;
+
+    /**
+     * The stack last written to each slot by the menu, used
+     * to skip writing a slot that already shows that stack.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final ItemStack[] writtenItems;
+
+    /**
+     * Occupancy of this page, kept in step with the menu's own
+     * writes. Player input marks it stale, it's then re-read
+     * from the inventory on the next query.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final BitSet freeSlots;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final int[] slotAmounts;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean occupancyStale = true;
+
+    /**
+     * Similarity key of the stack in each valid slot that has
+     * room left, and the slots holding each key.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final ItemStack[] slotKeys;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<ItemStack, BitSet> partialSlots = new HashMap<>();
+
+    /**
+     * The menu's valid slots as a mask, rebuilt when they no
+     * longer match the slots the mask was built from.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final BitSet validSlotMask = new BitSet();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private @Nullable List<Integer> maskedValidSlots;
+
+    /**
+     * The total amount of items in this page's valid slots.
+     */
+    @Setter(AccessLevel.NONE)
+    private long storedAmount;
+
+    @SuppressWarnings("unchecked")
+    public MenuInventory(Inventory inventory, String title) {
+        this.inventory = inventory;
+        this.title = title;
+
+        this.slotItems = new List[inventory.getSize()];
+        Arrays.fill(slotItems, List.of());
+
+        this.writtenItems = new ItemStack[inventory.getSize()];
+
+        this.freeSlots = new BitSet(inventory.getSize());
+        this.slotAmounts = new int[inventory.getSize()];
+        this.slotKeys = new ItemStack[inventory.getSize()];
+    }
+
+    /**
+     * Get the key stacks similar to the provided one share,
+     * the stack itself with an amount of one.
+     *
+     * @param item The stack.
+     * @return The similarity key.
+     */
+    public static ItemStack getSimilarityKey(@NonNull ItemStack item) {
+        ItemStack key = new ItemStack(item);
+        key.setAmount(1);
+        return key;
+    }
+
     public Menu getMenu() {
         return (Menu) inventory.getHolder();
     }
 
+    public boolean hasViewers() {
+        return !viewers.isEmpty();
+    }
+
+    /**
+     * @return Whether renders were skipped since the last call.
+     */
+    public boolean consumeRenderPending() {
+        if (!renderPending) {
+            return false;
+        }
+
+        renderPending = false;
+        return true;
+    }
+
+    /**
+     * Request the stacks for this page's items from the page's
+     * batch provider, or the menu's if the page has none.
+     *
+     * @param items The items that need rendering.
+     * @return The provided stacks, empty if there is no provider.
+     */
+    public Map<MenuItem, ItemStack> requestItems(@NonNull List<MenuItem> items) {
+        BatchMenuItemUpdateProvider provider = batchItemProvider != null ? batchItemProvider : getMenu().getBatchItemProvider();
+
+        if (provider == null || items.isEmpty()) {
+            return Map.of();
+        }
+
+        try {
+            Map<MenuItem, ItemStack> results = provider.requestItems(this, items);
+            return results == null ? Map.of() : results;
+        } catch (Exception exception) {
+            Bukkit.getLogger().log(Level.WARNING, "Batch item provider failed for menu '" + getMenu().getId() + "'", exception);
+            return Map.of();
+        }
+    }
+
+    /**
+     * @return Whether any valid slot of this page is empty, false if the menu has no valid slots.
+     */
     public boolean hasSpace() {
-        return getMenu().getData().getValidSlots().stream().anyMatch(slot -> inventory.getItem(slot) == null);
+        syncOccupancy();
+        return freeSlots.intersects(validSlotMask);
+    }
+
+    /**
+     * Get the lowest empty valid slot at or after the provided slot.
+     *
+     * @param fromSlot The slot to start searching from.
+     * @return The slot, or -1 if there is none.
+     */
+    public int getNextFreeSlot(int fromSlot) {
+        syncOccupancy();
+
+        for (int slot = freeSlots.nextSetBit(Math.max(0, fromSlot)); slot != -1; slot = freeSlots.nextSetBit(slot + 1)) {
+            if (validSlotMask.get(slot)) {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+    public boolean isSlotFree(int slot) {
+        syncOccupancy();
+        return slot >= 0 && slot < slotAmounts.length && freeSlots.get(slot);
+    }
+
+    /**
+     * Merge an amount of a stack into the similar stacks in this
+     * page's valid slots, skipping slots that belong to a menu item.
+     *
+     * @param key The stack's similarity key.
+     * @param amount The amount to add.
+     * @return The amount that didn't fit.
+     */
+    public int mergeItem(@NonNull ItemStack key, int amount) {
+        syncOccupancy();
+
+        BitSet slots = partialSlots.get(key);
+
+        if (slots == null) {
+            return amount;
+        }
+
+        int maxStackSize = Math.max(1, key.getMaxStackSize());
+
+        for (int slot = slots.nextSetBit(0); slot != -1 && amount > 0; slot = slots.nextSetBit(slot + 1)) {
+            if (!slotItems[slot].isEmpty()) {
+                continue;
+            }
+
+            int moved = Math.min(amount, maxStackSize - slotAmounts[slot]);
+
+            if (moved <= 0) {
+                continue;
+            }
+
+            ItemStack merged = key.clone();
+            merged.setAmount(slotAmounts[slot] + moved);
+
+            setItem(slot, merged);
+            amount -= moved;
+        }
+
+        return amount;
+    }
+
+    /**
+     * Place an amount of a stack into this page's empty valid
+     * slots, skipping slots that belong to a menu item.
+     *
+     * @param key The stack's similarity key.
+     * @param amount The amount to add.
+     * @return The amount that didn't fit.
+     */
+    public int placeItem(@NonNull ItemStack key, int amount) {
+        int maxStackSize = Math.max(1, key.getMaxStackSize());
+
+        for (int slot = getNextFreeSlot(0); slot != -1 && amount > 0; slot = getNextFreeSlot(slot + 1)) {
+            if (!slotItems[slot].isEmpty()) {
+                continue;
+            }
+
+            int moved = Math.min(amount, maxStackSize);
+
+            ItemStack placed = key.clone();
+            placed.setAmount(moved);
+
+            setItem(slot, placed);
+            amount -= moved;
+        }
+
+        return amount;
+    }
+
+    /**
+     * @return The number of non-empty slots on this page.
+     */
+    public int getOccupiedSlotCount() {
+        syncOccupancy();
+        return slotAmounts.length - freeSlots.cardinality();
+    }
+
+    public long getStoredAmount() {
+        syncOccupancy();
+        return storedAmount;
+    }
+
+    /**
+     * Mark this page's occupancy as out of date, used when
+     * something other than the menu changed its contents.
+     */
+    public void markStale() {
+        occupancyStale = true;
+    }
+
+    private void syncOccupancy() {
+        updateValidSlotMask();
+
+        if (!occupancyStale) {
+            return;
+        }
+
+        occupancyStale = false;
+
+        Arrays.fill(slotAmounts, 0);
+        Arrays.fill(slotKeys, null);
+        partialSlots.clear();
+        freeSlots.clear();
+        storedAmount = 0;
+
+        for (int slot = 0; slot < slotAmounts.length; slot++) {
+            trackSlot(slot, inventory.getItem(slot));
+        }
+    }
+
+    private void updateValidSlotMask() {
+        List<Integer> validSlots = getMenu().getData().getValidSlots();
+
+        if (validSlots.equals(maskedValidSlots)) {
+            return;
+        }
+
+        maskedValidSlots = new ArrayList<>(validSlots);
+        validSlotMask.clear();
+
+        for (int slot : validSlots) {
+            if (slot >= 0 && slot < slotAmounts.length) {
+                validSlotMask.set(slot);
+            }
+        }
+
+        occupancyStale = true;
+    }
+
+    private void trackSlot(int slot, @Nullable ItemStack item) {
+        int amount = item == null || item.getType().isAir() ? 0 : item.getAmount();
+
+        if (validSlotMask.get(slot)) {
+            storedAmount += amount - slotAmounts[slot];
+        }
+
+        slotAmounts[slot] = amount;
+        freeSlots.set(slot, amount == 0);
+
+        ItemStack previousKey = slotKeys[slot];
+
+        if (previousKey != null) {
+            BitSet slots = partialSlots.get(previousKey);
+
+            if (slots != null) {
+                slots.clear(slot);
+
+                if (slots.isEmpty()) {
+                    partialSlots.remove(previousKey);
+                }
+            }
+        }
+
+        if (amount == 0 || amount >= item.getMaxStackSize() || !validSlotMask.get(slot)) {
+            slotKeys[slot] = null;
+            return;
+        }
+
+        ItemStack key = getSimilarityKey(item);
+
+        slotKeys[slot] = key;
+        partialSlots.computeIfAbsent(key, k -> new BitSet()).set(slot);
+    }
+
+    /**
+     * Write a stack to a slot, unless the menu already wrote
+     * that exact stack to it.
+     *
+     * @param slot The slot to write.
+     * @param item The stack to write, or null to clear the slot.
+     * @return Whether the slot was written.
+     */
+    public boolean setItem(int slot, @Nullable ItemStack item) {
+        if (slot < 0 || slot >= writtenItems.length) {
+            return false;
+        }
+
+        if (item != null && writtenItems[slot] == item) {
+            return false;
+        }
+
+        inventory.setItem(slot, item);
+        writtenItems[slot] = item;
+
+        updateValidSlotMask();
+
+        if (!occupancyStale) {
+            trackSlot(slot, item);
+        }
+
+        return true;
+    }
+
+    public @Nullable ItemStack getWrittenItem(int slot) {
+        if (slot < 0 || slot >= writtenItems.length) {
+            return null;
+        }
+
+        return writtenItems[slot];
+    }
+
+    /**
+     * Forget what the menu wrote to a slot, used when something
+     * else changed the slot's contents.
+     *
+     * @param slot The slot to forget.
+     */
+    public void forgetWrittenItem(int slot) {
+        if (slot < 0 || slot >= writtenItems.length) {
+            return;
+        }
+
+        writtenItems[slot] = null;
+    }
+
+    /**
+     * Get the items occupying a slot on this page.
+     *
+     * @param slot The slot to look up.
+     * @return An immutable list of the items in the slot.
+     */
+    public List<MenuItem> getSlotItems(int slot) {
+        if (slot < 0 || slot >= slotItems.length) {
+            return List.of();
+        }
+
+        return slotItems[slot];
+    }
+
+    /**
+     * Get the first item occupying a slot on this page.
+     *
+     * @param slot The slot to look up.
+     * @return The item, or null if the slot is empty.
+     */
+    public @Nullable MenuItem getSlotItem(int slot) {
+        List<MenuItem> items = getSlotItems(slot);
+        return items.isEmpty() ? null : items.getFirst();
+    }
+
+    /**
+     * Register every slot of the provided item in this
+     * page's slot table.
+     *
+     * @param menuItem The item to index.
+     */
+    public void indexItem(@NonNull MenuItem menuItem) {
+        for (int slot : menuItem.getSlots()) {
+            indexItem(slot, menuItem);
+        }
+    }
+
+    public void indexItem(int slot, @NonNull MenuItem menuItem) {
+        if (slot < 0 || slot >= slotItems.length) {
+            return;
+        }
+
+        List<MenuItem> current = slotItems[slot];
+
+        for (MenuItem item : current) {
+            if (item == menuItem) {
+                return;
+            }
+        }
+
+        List<MenuItem> updated = new ArrayList<>(current.size() + 1);
+        updated.addAll(current);
+        updated.add(menuItem);
+
+        slotItems[slot] = List.copyOf(updated);
+    }
+
+    public void clearSlotIndex() {
+        Arrays.fill(slotItems, List.of());
     }
 
 }
@@ -0,0 +1,125 @@
+package net.bitbylogic.menus.item;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.task.MenuScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * Tracks loads started by {@link AsyncMenuItemUpdateProvider}s
+ * and applies the completed ones on the main thread in one batch.
+ * Completions wake the {@link MenuScheduler}, so they're applied
+ * even once no menu task is running.
+ */
+public final class AsyncItemUpdateQueue {
+
+    private static final Queue<Completion> COMPLETED = new ConcurrentLinkedQueue<>();
+
+    @Getter
+    private static volatile Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private AsyncItemUpdateQueue() {
+    }
+
+    /**
+     * Set the executor async providers load their items on.
+     *
+     * @param executor The executor to use.
+     */
+    public static void setExecutor(@NonNull Executor executor) {
+        AsyncItemUpdateQueue.executor = executor;
+    }
+
+    /**
+     * @return The number of completed loads waiting to be applied.
+     */
+    public static int getPending() {
+        return COMPLETED.size();
+    }
+
+    /**
+     * Apply every completed load, rendering the loaded items to
+     * their menus. Must be called from the main thread.
+     *
+     * @return The number of loads applied.
+     */
+    public static int applyCompleted() {
+        int applied = 0;
+        Completion completion;
+
+        while ((completion = COMPLETED.poll()) != null) {
+            MenuItem menuItem = completion.menuItem();
+            MenuItem.AsyncState state = menuItem.getAsyncState();
+
+            state.pending = false;
+            applied++;
+
+            if (completion.error() != null) {
+                Bukkit.getLogger().log(Level.WARNING, "Failed to load menu item '" + menuItem.getId() + "'", completion.error());
+                continue;
+            }
+
+            state.result = completion.item();
+            state.fresh = true;
+
+            menuItem.invalidate();
+
+            Menu menu = menuItem.getMenu();
+
+            if (menu == null) {
+                continue;
+            }
+
+            menu.getUpdateTask().render(menuItem);
+        }
+
+        return applied;
+    }
+
+    static @Nullable ItemStack request(@NonNull AsyncMenuItemUpdateProvider provider, @NonNull MenuItem menuItem) {
+        MenuItem.AsyncState state = menuItem.getAsyncState();
+
+        if (state.fresh) {
+            state.fresh = false;
+            return state.result == null ? null : state.result.clone();
+        }
+
+        if (!state.pending) {
+            state.pending = true;
+
+            CompletableFuture<ItemStack> future;
+
+            try {
+                future = provider.requestItemAsync(menuItem, executor);
+            } catch (Throwable throwable) {
+                future = CompletableFuture.failedFuture(throwable);
+            }
+
+            future.whenComplete((item, error) -> {
+                COMPLETED.add(new Completion(menuItem, item, error));
+                MenuScheduler.requestAsyncApply();
+            });
+        }
+
+        if (state.result != null) {
+            return state.result.clone();
+        }
+
+        return provider.getPlaceholderItem(menuItem);
+    }
+
+    private record Completion(@NonNull MenuItem menuItem, @Nullable ItemStack item, @Nullable Throwable error) {
+
+    }
+
+}
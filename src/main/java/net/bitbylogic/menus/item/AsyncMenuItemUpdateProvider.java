@@ -0,0 +1,54 @@
+package net.bitbylogic.menus.item;
+
+import lombok.NonNull;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * An update provider whose items are loaded off the main thread.
+ * <p>
+ * While a request is running the item keeps showing its last
+ * loaded stack, or {@link #getPlaceholderItem(MenuItem)} before
+ * the first load completes. Completed loads are applied on the
+ * main thread by {@link AsyncItemUpdateQueue}.
+ */
+@FunctionalInterface
+public interface AsyncMenuItemUpdateProvider extends MenuItemUpdateProvider {
+
+    /**
+     * Load the item, the returned future may complete on any thread.
+     *
+     * @param menuItem The item being loaded.
+     * @param executor The executor configured on {@link AsyncItemUpdateQueue}.
+     * @return A future completing with the loaded stack.
+     */
+    CompletableFuture<ItemStack> requestItemAsync(@NonNull MenuItem menuItem, @NonNull Executor executor);
+
+    /**
+     * @param menuItem The item being loaded.
+     * @return The stack to show until the first load completes.
+     */
+    default @Nullable ItemStack getPlaceholderItem(@NonNull MenuItem menuItem) {
+        return menuItem.getItem() == null ? null : menuItem.getItem().clone();
+    }
+
+    @Override
+    default ItemStack requestItem(MenuItem menuItem) {
+        return AsyncItemUpdateQueue.request(this, menuItem);
+    }
+
+    /**
+     * Create a provider running a blocking loader on the configured executor.
+     *
+     * @param loader The loader, called off the main thread.
+     * @return The provider.
+     */
+    static AsyncMenuItemUpdateProvider of(@NonNull Function<MenuItem, ItemStack> loader) {
+        return (menuItem, executor) -> CompletableFuture.supplyAsync(() -> loader.apply(menuItem), executor);
+    }
+
+}
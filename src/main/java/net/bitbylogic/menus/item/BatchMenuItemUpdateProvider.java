@@ -0,0 +1,30 @@
+package net.bitbylogic.menus.item;
+
+import lombok.NonNull;
+import net.bitbylogic.menus.inventory.MenuInventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides the stacks for many items of a page at once, attached
+ * to a {@link net.bitbylogic.menus.Menu} or a single {@link MenuInventory}.
+ * <p>
+ * Called once per page with every item that needs rendering,
+ * items missing from the result are rendered as usual.
+ */
+@FunctionalInterface
+public interface BatchMenuItemUpdateProvider {
+
+    /**
+     * Get the stacks for a page's items. The returned stacks are
+     * owned by the menu afterward and must not be reused.
+     *
+     * @param page The page being rendered.
+     * @param items The items of the page that need rendering.
+     * @return The stack for each provided item.
+     */
+    Map<MenuItem, ItemStack> requestItems(@NonNull MenuInventory page, @NonNull List<MenuItem> items);
+
+}
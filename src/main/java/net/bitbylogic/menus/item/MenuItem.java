@@ -1,15 +1,20 @@
 package net.bitbylogic.menus.item;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import net.bitbylogic.menus.ClickCooldownTable;
 import net.bitbylogic.menus.Menu;
 import net.bitbylogic.menus.action.ClickAction;
+import net.bitbylogic.menus.action.CompiledClickAction;
 import net.bitbylogic.menus.action.InternalClickAction;
+import net.bitbylogic.menus.data.MenuData;
 import net.bitbylogic.menus.requirement.ClickRequirement;
+import net.bitbylogic.menus.text.MessageTemplateCache;
 import net.bitbylogic.menus.view.MenuViewRequirement;
 import net.bitbylogic.utils.GenericHashMap;
-import net.bitbylogic.utils.cooldown.CooldownUtil;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
@@ -20,10 +25,13 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 @Getter
 public class MenuItem implements Cloneable {
@@ -32,9 +40,18 @@ public class MenuItem implements Cloneable {
 
     private final @NotNull String id;
 
+    @Getter(AccessLevel.NONE)
     private final @NonNull List<Integer> slots;
+
+    @Getter(AccessLevel.NONE)
     private final @NotNull List<Inventory> sourceInventories;
 
+    @Getter(AccessLevel.NONE)
+    private final @NonNull List<Integer> slotsView;
+
+    @Getter(AccessLevel.NONE)
+    private final @NonNull List<Inventory> sourceInventoriesView;
+
     private final @NotNull List<ClickAction> actions;
     private final @NotNull HashMap<InternalClickAction, String> internalActions;
 
@@ -64,11 +81,50 @@ public class MenuItem implements Cloneable {
     private int clickCooldownTime = 200;
     private TimeUnit clickCooldownUnit = TimeUnit.MILLISECONDS;
 
+    @Getter(AccessLevel.NONE)
+    private final ClickCooldownTable clickCooldowns = new ClickCooldownTable();
+
+    @Getter(AccessLevel.NONE)
+    private List<CompiledClickAction> compiledActions;
+
+    /**
+     * The internal actions the compiled actions were made from.
+     */
+    @Getter(AccessLevel.NONE)
+    private @Nullable Map<InternalClickAction, String> compiledActionsSource;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final List<MenuItemRegistry> registries = new ArrayList<>(1);
+
+    @Getter(AccessLevel.NONE)
+    private int version;
+
+    @Getter(AccessLevel.NONE)
+    private @Nullable ItemStack renderedItem;
+
+    /**
+     * The stack the rendered item was made from, kept for updatable
+     * and provided items to tell whether their output changed.
+     */
+    @Getter(AccessLevel.NONE)
+    private @Nullable ItemStack renderedSource;
+
+    @Getter(AccessLevel.NONE)
+    private long renderedPlaceholderVersion = -1;
+
+    @Getter(AccessLevel.NONE)
+    private int renderedVersion = -1;
+
+    @Getter(AccessLevel.NONE)
+    private @Nullable AsyncState asyncState;
+
     public MenuItem(@NonNull String id) {
         this.id = id;
 
         this.slots = new ArrayList<>();
         this.sourceInventories = new ArrayList<>();
+        this.slotsView = new PlacementList<>(slots, this::onPlacementChanged);
+        this.sourceInventoriesView = new PlacementList<>(sourceInventories, this::onPlacementChanged);
 
         this.actions = new ArrayList<>();
         this.internalActions = new HashMap<>();
@@ -87,6 +143,8 @@ public class MenuItem implements Cloneable {
         this.id = id;
         this.slots = slots;
         this.sourceInventories = sourceInventories;
+        this.slotsView = new PlacementList<>(slots, this::onPlacementChanged);
+        this.sourceInventoriesView = new PlacementList<>(sourceInventories, this::onPlacementChanged);
         this.actions = actions;
         this.internalActions = internalActions;
         this.clickRequirements = clickRequirements;
@@ -100,12 +158,39 @@ public class MenuItem implements Cloneable {
         this.locked = false;
     }
 
+    /**
+     * The slots this item is placed in. Changing the list directly
+     * makes the menu rebuild its slot index, {@link #withSlot(int)}
+     * updates it in place.
+     *
+     * @return The slots.
+     */
+    public @NonNull List<Integer> getSlots() {
+        return slotsView;
+    }
+
+    /**
+     * The pages this item is placed on. Changing the list directly
+     * makes the menu rebuild its slot index.
+     *
+     * @return The source inventories.
+     */
+    public @NotNull List<Inventory> getSourceInventories() {
+        return sourceInventoriesView;
+    }
+
     public MenuItem withSlot(int slot) {
         if(locked) {
             return this;
         }
 
         this.slots.add(slot);
+
+        if (menu != null) {
+            menu.indexItemSlot(this, slot);
+            menu.invalidate(this);
+        }
+
         return this;
     }
 
@@ -115,19 +200,92 @@ public class MenuItem implements Cloneable {
         }
 
         this.slots.addAll(slots);
+
+        if (!slots.isEmpty() && menu != null) {
+            menu.indexItem(this);
+            menu.invalidate(this);
+        }
+
         return this;
     }
 
     public MenuItem withSourceInventory(@NonNull Inventory inventory) {
         this.sourceInventories.add(inventory);
+
+        if (menu != null) {
+            menu.indexItemInventory(this, inventory);
+            menu.invalidate(this);
+        }
+
         return this;
     }
 
     public MenuItem withSourceInventories(@NonNull List<Inventory> sourceInventories) {
         this.sourceInventories.addAll(sourceInventories);
+
+        if (!sourceInventories.isEmpty() && menu != null) {
+            menu.indexItem(this);
+            menu.invalidate(this);
+        }
+
         return this;
     }
 
+    /**
+     * Remove slots from this item, ignoring whether it's locked.
+     *
+     * @param slots The slots to remove.
+     * @return Whether any slot was removed.
+     */
+    public boolean removeSlots(@NonNull Collection<Integer> slots) {
+        if (!this.slots.removeAll(slots)) {
+            return false;
+        }
+
+        onPlacementChanged();
+        return true;
+    }
+
+    /**
+     * Remove every slot from this item, ignoring whether it's locked.
+     *
+     * @return Whether the item had any slots.
+     */
+    public boolean clearSlots() {
+        if (slots.isEmpty()) {
+            return false;
+        }
+
+        slots.clear();
+        onPlacementChanged();
+        return true;
+    }
+
+    /**
+     * Remove the pages matching the filter from this item.
+     *
+     * @param filter Which inventories to remove.
+     * @return Whether any inventory was removed.
+     */
+    public boolean removeSourceInventories(@NonNull Predicate<Inventory> filter) {
+        if (!sourceInventories.removeIf(filter)) {
+            return false;
+        }
+
+        onPlacementChanged();
+        return true;
+    }
+
+    private void onPlacementChanged() {
+        if (menu == null) {
+            return;
+        }
+
+        // Only additions made through the with* methods are indexed in place, anything else rebuilds it.
+        menu.invalidateSlotIndex();
+        menu.invalidate(this);
+    }
+
     public MenuItem withAction(@NonNull ClickAction action) {
         actions.add(action);
         return this;
@@ -144,6 +302,7 @@ public class MenuItem implements Cloneable {
         }
 
         this.internalActions.put(actionType, data);
+        this.compiledActions = null;
         return this;
     }
 
@@ -153,6 +312,7 @@ public class MenuItem implements Cloneable {
         }
 
         this.internalActions.putAll(internalActions);
+        this.compiledActions = null;
         return this;
     }
 
@@ -168,11 +328,13 @@ public class MenuItem implements Cloneable {
 
     public MenuItem withViewRequirement(@NonNull MenuViewRequirement requirement) {
         this.viewRequirements.add(requirement);
+        invalidate();
         return this;
     }
 
     public MenuItem withViewRequirements(@NonNull List<MenuViewRequirement> viewRequirements) {
         this.viewRequirements.addAll(viewRequirements);
+        invalidate();
         return this;
     }
 
@@ -182,6 +344,7 @@ public class MenuItem implements Cloneable {
         }
 
         metadata.put(key, value);
+        invalidate();
         return this;
     }
 
@@ -191,6 +354,7 @@ public class MenuItem implements Cloneable {
         }
 
         this.metadata.putAll(metadata);
+        invalidate();
         return this;
     }
 
@@ -200,6 +364,7 @@ public class MenuItem implements Cloneable {
         }
 
         this.item = item;
+        invalidate();
         return this;
     }
 
@@ -209,6 +374,8 @@ public class MenuItem implements Cloneable {
         }
 
         this.filler = filler;
+        registries.forEach(MenuItemRegistry::invalidateRoles);
+        invalidate();
         return this;
     }
 
@@ -218,6 +385,7 @@ public class MenuItem implements Cloneable {
         }
 
         this.updatable = updatable;
+        invalidate();
         return this;
     }
 
@@ -233,6 +401,7 @@ public class MenuItem implements Cloneable {
 
     public MenuItem updateProvider(@NonNull MenuItemUpdateProvider updateProvider) {
         this.itemUpdateProvider = updateProvider;
+        invalidate();
         return this;
     }
 
@@ -246,18 +415,142 @@ public class MenuItem implements Cloneable {
         return this;
     }
 
+    /**
+     * Mark this item for re-rendering on the next menu update.
+     */
+    public void invalidate() {
+        version++;
+
+        if (menu == null) {
+            return;
+        }
+
+        menu.invalidate(this);
+    }
+
+    /**
+     * Get this item's stack with the menu's placeholders applied.
+     * <p>
+     * The result is cached until this item is invalidated or the
+     * placeholders change, and is shared by every slot and page
+     * showing this item, so it must not be modified. Updatable items
+     * read their stack or provider again on every call, but are only
+     * copied and rendered again when that stack changed.
+     *
+     * @param data The data of the menu rendering this item.
+     * @param placeholderVersion The menu's current placeholder version.
+     * @return The rendered stack, or null if there is nothing to show.
+     */
+    public @Nullable ItemStack render(@NonNull MenuData data, long placeholderVersion) {
+        return render(data, placeholderVersion, null);
+    }
+
+    /**
+     * Render this item from a stack supplied by a {@link BatchMenuItemUpdateProvider},
+     * falling back to {@link #render(MenuData, long)} when none was supplied.
+     *
+     * @param data The data of the menu rendering this item.
+     * @param placeholderVersion The menu's current placeholder version.
+     * @param provided The supplied stack, owned by this item afterward.
+     * @return The rendered stack, or null if there is nothing to show.
+     */
+    public @Nullable ItemStack render(@NonNull MenuData data, long placeholderVersion, @Nullable ItemStack provided) {
+        boolean cached = renderedItem != null && renderedVersion == version && renderedPlaceholderVersion == placeholderVersion;
+        boolean compare = provided != null || updatable;
+
+        if (cached && !compare) {
+            return renderedItem;
+        }
+
+        ItemStack source = provided != null ? provided : itemUpdateProvider != null ? itemUpdateProvider.requestItem(this) : item;
+
+        if (source == null) {
+            return null;
+        }
+
+        if (cached && source.equals(renderedSource)) {
+            return renderedItem;
+        }
+
+        ItemStack rendered = source == item ? item.clone() : source;
+        ItemStack renderedSource = compare ? rendered : null;
+
+        if (!data.getPlaceholders().isEmpty()) {
+            if (compare) {
+                renderedSource = rendered.clone();
+            }
+
+            MessageTemplateCache.getInstance().updateItem(rendered, data.getPlaceholders());
+        }
+
+        this.renderedItem = rendered;
+        this.renderedSource = renderedSource;
+        this.renderedVersion = version;
+        this.renderedPlaceholderVersion = placeholderVersion;
+        return rendered;
+    }
+
+    public @Nullable ItemStack render(@NonNull MenuData data) {
+        return render(data, data.getPlaceholderVersion());
+    }
+
+    /**
+     * Get the internal actions parsed ahead of time, recompiled
+     * if the internal actions changed since they were compiled.
+     * Actions missing their arguments are skipped and logged.
+     *
+     * @return The compiled internal actions.
+     */
+    public List<CompiledClickAction> getCompiledActions() {
+        // The map is exposed, so changes made to it directly are caught by comparing
+        if (compiledActions != null && internalActions.equals(compiledActionsSource)) {
+            return compiledActions;
+        }
+
+        List<CompiledClickAction> compiled = new ArrayList<>(internalActions.size());
+
+        internalActions.forEach((type, args) -> {
+            try {
+                compiled.add(CompiledClickAction.compile(type, args));
+            } catch (IllegalArgumentException exception) {
+                Bukkit.getLogger().warning("Skipping invalid action of menu item '" + id + "': " + exception.getMessage());
+            }
+        });
+
+        compiledActions = List.copyOf(compiled);
+        compiledActionsSource = Map.copyOf(internalActions);
+        return compiledActions;
+    }
+
+    /**
+     * Use actions compiled while loading the item, matching its
+     * current internal actions.
+     *
+     * @param compiledActions The compiled internal actions.
+     */
+    void setCompiledActions(@NonNull List<CompiledClickAction> compiledActions) {
+        this.compiledActions = List.copyOf(compiledActions);
+        this.compiledActionsSource = Map.copyOf(internalActions);
+    }
+
+    AsyncState getAsyncState() {
+        if (asyncState == null) {
+            asyncState = new AsyncState();
+        }
+
+        return asyncState;
+    }
+
     public void onClick(@NonNull InventoryClickEvent event, @NonNull JavaPlugin plugin) {
         if (clickRequirements.stream().anyMatch(requirement -> !requirement.canClick((Player) event.getWhoClicked()))) {
             return;
         }
 
-        if(CooldownUtil.hasCooldown(id + "-" + event.getSlot(), event.getWhoClicked().getUniqueId())) {
+        if (!clickCooldowns.tryAcquire(event.getWhoClicked().getUniqueId(), event.getSlot(), clickCooldownUnit.toMillis(clickCooldownTime))) {
             return;
         }
 
-        CooldownUtil.startCooldown(plugin, id + "-" + event.getSlot(), event.getWhoClicked().getUniqueId(), clickCooldownTime, clickCooldownUnit);
-
-        internalActions.keySet().forEach(action -> action.getAction().onClick(event, internalActions.get(action)));
+        getCompiledActions().forEach(action -> action.onClick(event));
         new ArrayList<>(actions).forEach(action -> action.onClick(event));
     }
 
@@ -304,4 +597,47 @@ public class MenuItem implements Cloneable {
                 filler, updatable, false
         );
     }
+
+    /**
+     * Create a copy of this item's definition, keeping its saved and
+     * locked state, cooldown and compiled actions, unlike {@link #clone()}.
+     * <p>
+     * The copy belongs to no menu, it has no source inventories and
+     * none of this item's render, dirty or async state, so it's placed
+     * on the pages of the menu it's added to.
+     *
+     * @return The copy.
+     */
+    public MenuItem copy() {
+        GenericHashMap<String, Object> metadata = new GenericHashMap<>();
+        metadata.putAll(this.metadata);
+
+        MenuItem copy = new MenuItem(
+                id, new ArrayList<>(slots), new ArrayList<>(), new ArrayList<>(actions),
+                new HashMap<>(internalActions), new ArrayList<>(clickRequirements),
+                new ArrayList<>(viewRequirements), metadata, item == null ? null : item.clone(), itemUpdateProvider,
+                filler, updatable, saved
+        );
+
+        copy.global = global;
+        copy.saveSlots = saveSlots;
+        copy.clickCooldownTime = clickCooldownTime;
+        copy.clickCooldownUnit = clickCooldownUnit;
+        copy.compiledActions = compiledActions;
+        copy.compiledActionsSource = compiledActionsSource;
+        copy.locked = locked;
+        return copy;
+    }
+
+    /**
+     * Load state for items using an {@link AsyncMenuItemUpdateProvider},
+     * only accessed from the main thread.
+     */
+    static class AsyncState {
+
+        @Nullable ItemStack result;
+        boolean pending;
+        boolean fresh;
+
+    }
 }
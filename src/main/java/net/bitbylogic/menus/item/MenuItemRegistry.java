@@ -0,0 +1,237 @@
+package net.bitbylogic.menus.item;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A list of {@link MenuItem}s that keeps a case-insensitive id
+ * index and the filler role cached, so lookups don't scan.
+ * Every structural change, including removal through an
+ * iterator, keeps the index in sync.
+ * <p>
+ * A registry created with {@link #backedBy(List)} shares the
+ * caller's list. Items added to or removed from that list directly
+ * are picked up on the next access, replacing one in place isn't.
+ */
+public class MenuItemRegistry extends AbstractList<MenuItem> implements RandomAccess {
+
+    private final List<MenuItem> items;
+    private final Map<String, MenuItem> idLookup;
+
+    private @Nullable MenuItem fillerItem;
+    private boolean fillerResolved;
+
+    private int indexedSize;
+
+    public MenuItemRegistry() {
+        this.items = new ArrayList<>();
+        this.idLookup = new HashMap<>();
+    }
+
+    public MenuItemRegistry(@NonNull Collection<MenuItem> items) {
+        this.items = new ArrayList<>(items.size());
+        this.idLookup = new HashMap<>();
+
+        addAll(items);
+    }
+
+    private MenuItemRegistry(@NonNull List<MenuItem> items, boolean backed) {
+        this.items = items;
+        this.idLookup = new HashMap<>();
+        this.indexedSize = -1;
+
+        syncExternalChanges();
+    }
+
+    /**
+     * Get a registry using the provided list as its storage, so
+     * changes through either are visible in both.
+     *
+     * @param items The list to use.
+     * @return The registry backed by the list, or the list itself if it's a registry.
+     */
+    public static MenuItemRegistry backedBy(@NonNull List<MenuItem> items) {
+        if (items instanceof MenuItemRegistry registry) {
+            return registry;
+        }
+
+        return new MenuItemRegistry(items, true);
+    }
+
+    @Override
+    public MenuItem get(int index) {
+        return items.get(index);
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public MenuItem set(int index, @NonNull MenuItem item) {
+        syncExternalChanges();
+
+        MenuItem previous = items.set(index, item);
+
+        unregister(previous);
+        register(item, true);
+        return previous;
+    }
+
+    @Override
+    public void add(int index, @NonNull MenuItem item) {
+        syncExternalChanges();
+
+        boolean appended = index == items.size();
+
+        items.add(index, item);
+        indexedSize++;
+        modCount++;
+
+        register(item, !appended);
+    }
+
+    @Override
+    public MenuItem remove(int index) {
+        syncExternalChanges();
+
+        MenuItem removed = items.remove(index);
+        indexedSize--;
+        modCount++;
+
+        unregister(removed);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        items.forEach(this::detach);
+        items.clear();
+        indexedSize = 0;
+        modCount++;
+
+        idLookup.clear();
+        fillerItem = null;
+        fillerResolved = true;
+    }
+
+    /**
+     * Get the first item with the provided id, ignoring case.
+     *
+     * @param id The item id.
+     * @return The item if present.
+     */
+    public Optional<MenuItem> getById(@Nullable String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        syncExternalChanges();
+        return Optional.ofNullable(idLookup.get(toKey(id)));
+    }
+
+    /**
+     * Get the first item flagged as filler.
+     *
+     * @return The filler item if present.
+     */
+    public Optional<MenuItem> getFillerItem() {
+        syncExternalChanges();
+
+        if (!fillerResolved) {
+            fillerItem = items.stream().filter(MenuItem::isFiller).findFirst().orElse(null);
+            fillerResolved = true;
+        }
+
+        return Optional.ofNullable(fillerItem);
+    }
+
+    /**
+     * Called when an item's role changed after it was added.
+     */
+    void invalidateRoles() {
+        fillerResolved = false;
+    }
+
+    /**
+     * Rebuild the index if the backing list was changed directly.
+     */
+    private void syncExternalChanges() {
+        if (items.size() == indexedSize) {
+            return;
+        }
+
+        idLookup.clear();
+
+        for (MenuItem item : items) {
+            if (item.getRegistries().stream().noneMatch(registry -> registry == this)) {
+                item.getRegistries().add(this);
+            }
+
+            idLookup.putIfAbsent(toKey(item.getId()), item);
+        }
+
+        fillerResolved = false;
+        indexedSize = items.size();
+    }
+
+    private void register(@NonNull MenuItem item, boolean reorder) {
+        item.getRegistries().add(this);
+
+        String key = toKey(item.getId());
+
+        if (reorder) {
+            resolveId(key);
+        } else {
+            idLookup.putIfAbsent(key, item);
+        }
+
+        if (item.isFiller()) {
+            fillerResolved = false;
+        }
+    }
+
+    private void unregister(@NonNull MenuItem item) {
+        detach(item);
+
+        String key = toKey(item.getId());
+
+        if (idLookup.get(key) == item) {
+            resolveId(key);
+        }
+
+        if (fillerItem == item) {
+            fillerResolved = false;
+        }
+    }
+
+    private void detach(@NonNull MenuItem item) {
+        Iterator<MenuItemRegistry> iterator = item.getRegistries().iterator();
+
+        while (iterator.hasNext()) {
+            if (iterator.next() == this) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private void resolveId(@NonNull String key) {
+        for (MenuItem item : items) {
+            if (toKey(item.getId()).equals(key)) {
+                idLookup.put(key, item);
+                return;
+            }
+        }
+
+        idLookup.remove(key);
+    }
+
+    private static String toKey(@NonNull String id) {
+        return id.toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -1,15 +1,18 @@
 package net.bitbylogic.menus.item;
 
 import lombok.NonNull;
+import net.bitbylogic.menus.action.CompiledClickAction;
 import net.bitbylogic.menus.action.InternalClickAction;
 import net.bitbylogic.utils.config.ConfigSerializer;
 import net.bitbylogic.utils.item.ItemStackUtil;
+import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class MenuItemSerializer implements ConfigSerializer<MenuItem> {
@@ -23,13 +26,31 @@ public class MenuItemSerializer implements ConfigSerializer<MenuItem> {
 
         if (!section.getStringList("Actions").isEmpty()) {
             HashMap<InternalClickAction, String> internalActions = new HashMap<>();
+            Map<InternalClickAction, CompiledClickAction> compiledActions = new HashMap<>();
+
             section.getStringList("Actions").forEach(action -> {
-                String[] data = action.split(":");
+                String[] data = action.split(":", 2);
                 InternalClickAction type = InternalClickAction.parseType(data[0]);
-                internalActions.put(type, data.length > 1 ? data[1] : "");
+
+                if (type == null) {
+                    Bukkit.getLogger().warning("Skipping unknown action '" + data[0] + "' of menu item '" + id + "'");
+                    return;
+                }
+
+                String args = data.length > 1 ? data[1] : "";
+
+                try {
+                    compiledActions.put(type, CompiledClickAction.compile(type, args));
+                } catch (IllegalArgumentException exception) {
+                    Bukkit.getLogger().warning("Skipping invalid action of menu item '" + id + "': " + exception.getMessage());
+                    return;
+                }
+
+                internalActions.put(type, args);
             });
 
             menuItem.withInternalActions(internalActions);
+            menuItem.setCompiledActions(menuItem.getInternalActions().keySet().stream().map(compiledActions::get).toList());
         }
 
         ConfigurationSection metaDataSection = section.getConfigurationSection("Metadata");
@@ -0,0 +1,60 @@
+package net.bitbylogic.menus.item;
+
+import lombok.NonNull;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A view of an item's slots or pages, notifying the item when it's
+ * changed directly so the menu's slot index doesn't go stale.
+ */
+final class PlacementList<E> extends AbstractList<E> implements RandomAccess {
+
+    private final List<E> elements;
+    private final Runnable onChange;
+
+    PlacementList(@NonNull List<E> elements, @NonNull Runnable onChange) {
+        this.elements = elements;
+        this.onChange = onChange;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return elements.contains(object);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        E previous = elements.set(index, element);
+        onChange.run();
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        elements.add(index, element);
+        modCount++;
+        onChange.run();
+    }
+
+    @Override
+    public E remove(int index) {
+        E removed = elements.remove(index);
+        modCount++;
+        onChange.run();
+        return removed;
+    }
+
+}
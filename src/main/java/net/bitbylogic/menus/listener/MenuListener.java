@@ -4,41 +4,53 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import net.bitbylogic.menus.Menu;
 import net.bitbylogic.menus.MenuFlag;
+import net.bitbylogic.menus.MenuManager;
+import net.bitbylogic.menus.inventory.MenuInventory;
 import net.bitbylogic.menus.item.MenuItem;
-import net.bitbylogic.utils.cooldown.CooldownUtil;
-import net.bitbylogic.utils.inventory.InventoryUtil;
+import net.bitbylogic.menus.paged.PagedMenuView;
+import net.bitbylogic.menus.task.MenuLifecycleManager;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.*;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 @RequiredArgsConstructor
 public class MenuListener implements Listener {
 
+    private static final long CLICK_COOLDOWN_MILLIS = 200;
+
     private final JavaPlugin plugin;
-    private final TimeUnit clickCooldownUnit = TimeUnit.MILLISECONDS;
 
     @EventHandler
     public void onMenuClick(InventoryClickEvent event) {
-        Inventory topInventory = InventoryUtil.getViewInventory(event, "getTopInventory");
-        Inventory bottomInventory = InventoryUtil.getViewInventory(event, "getBottomInventory");
+        Inventory topInventory = ViewInventoryAccessor.getTopInventory(event);
+        Inventory bottomInventory = ViewInventoryAccessor.getBottomInventory(event);
 
         if (!(event.getWhoClicked() instanceof Player)) {
             return;
         }
 
-        if (!(topInventory.getHolder() instanceof Menu menu)) {
+        if (topInventory.getHolder() instanceof PagedMenuView<?> pagedView) {
+            pagedView.onClick(event);
+            return;
+        }
+
+        Menu menu = getMenu(topInventory);
+
+        if (menu == null) {
             return;
         }
 
+        menu.markInteraction();
+
         if (event.getClick() == ClickType.NUMBER_KEY && event.getClickedInventory() == topInventory) {
             event.setCancelled(true);
             return;
@@ -51,14 +63,11 @@ public class MenuListener implements Listener {
 
         if (event.getClickedInventory() == bottomInventory) {
             if (menu.getData().getExternalClickAction() != null) {
-                if(CooldownUtil.hasCooldown(menu.getId() + "exc-" + event.getSlot(), event.getWhoClicked().getUniqueId())) {
+                if (!menu.getExternalClickCooldowns().tryAcquire(event.getWhoClicked().getUniqueId(), event.getSlot(), CLICK_COOLDOWN_MILLIS)) {
                     event.setCancelled(!menu.getData().hasFlag(MenuFlag.LOWER_INTERACTION));
                     return;
                 }
 
-                int clickCooldownTime = 200;
-                CooldownUtil.startCooldown(plugin, menu.getId() + "exc-" + event.getSlot(), event.getWhoClicked().getUniqueId(), clickCooldownTime, clickCooldownUnit);
-
                 menu.getData().getExternalClickAction().onClick(event);
             }
 
@@ -74,15 +83,15 @@ public class MenuListener implements Listener {
             menu.getData().getClickAction().onClick(event);
         }
 
-        if (menu.getItem(topInventory, event.getSlot()).isEmpty() && (event.getCursor() == null || event.getCursor().getType() == Material.AIR) && menu.getData().hasFlag(MenuFlag.ALLOW_REMOVAL)) {
+        List<MenuItem> clickedItems = menu.getItems(topInventory, event.getSlot());
+
+        if (clickedItems.isEmpty() && (event.getCursor() == null || event.getCursor().getType() == Material.AIR) && menu.getData().hasFlag(MenuFlag.ALLOW_REMOVAL)) {
             return;
         }
 
-        event.setCancelled(menu.getItem(topInventory, event.getSlot()).isPresent() || !menu.getData().hasFlag(MenuFlag.ALLOW_INPUT));
-
-        List<MenuItem> clickedItemsCopy = new ArrayList<>(menu.getItems(topInventory, event.getSlot()));
+        event.setCancelled(!clickedItems.isEmpty() || !menu.getData().hasFlag(MenuFlag.ALLOW_INPUT));
 
-        clickedItemsCopy.forEach(menuItem -> {
+        clickedItems.forEach(menuItem -> {
             if (menuItem.getViewRequirements().stream().anyMatch(requirement -> !requirement.canView(topInventory, menuItem, menu))) {
                 return;
             }
@@ -93,22 +102,57 @@ public class MenuListener implements Listener {
 
             menuItem.onClick(event, plugin);
 
-            List<Inventory> sourceInventoriesCopy = new ArrayList<>(menuItem.getSourceInventories());
-
-            sourceInventoriesCopy.forEach(inventory -> {
-                List<Integer> slotsCopy = new ArrayList<>(menuItem.getSlots());
-                slotsCopy.forEach(slot ->
-                        inventory.setItem(slot, menuItem.getItemUpdateProvider() == null ? menuItem.getItem().clone() : menuItem.getItemUpdateProvider().requestItem(menuItem))
-                );
-            });
+            menuItem.invalidate();
+            menu.getUpdateTask().render(menuItem);
         });
     }
 
+    /**
+     * Player input that went through may have changed a page's
+     * contents, so its occupancy is re-read on the next query.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMenuInput(InventoryClickEvent event) {
+        Inventory topInventory = ViewInventoryAccessor.getTopInventory(event);
+
+        Menu menu = getMenu(topInventory);
+
+        if (menu == null) {
+            return;
+        }
+
+        if (event.getClickedInventory() != topInventory && !event.isShiftClick() && event.getClick() != ClickType.DOUBLE_CLICK) {
+            return;
+        }
+
+        markStale(topInventory);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMenuDrag(InventoryDragEvent event) {
+        Inventory inventory = event.getInventory();
+
+        markStale(inventory);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMenuTransfer(InventoryMoveItemEvent event) {
+        markStale(event.getDestination());
+        markStale(event.getSource());
+    }
+
     @EventHandler
     public void onTransfer(InventoryMoveItemEvent event) {
         Inventory inventory = event.getDestination();
 
-        if (!(inventory.getHolder() instanceof Menu menu)) {
+        if (inventory.getHolder() instanceof PagedMenuView<?>) {
+            event.setCancelled(true);
+            return;
+        }
+
+        Menu menu = getMenu(inventory);
+
+        if (menu == null) {
             return;
         }
 
@@ -118,12 +162,21 @@ public class MenuListener implements Listener {
     @EventHandler
     public void onDrag(InventoryDragEvent event) {
         Inventory inventory = event.getInventory();
-        Inventory bottomInventory = InventoryUtil.getViewInventory(event, "getBottomInventory");
+        Inventory bottomInventory = ViewInventoryAccessor.getBottomInventory(event);
 
-        if (!(inventory.getHolder() instanceof Menu menu)) {
+        if (inventory.getHolder() instanceof PagedMenuView<?>) {
+            event.setCancelled(event.getRawSlots().stream().anyMatch(slot -> slot < inventory.getSize()));
             return;
         }
 
+        Menu menu = getMenu(inventory);
+
+        if (menu == null) {
+            return;
+        }
+
+        menu.markInteraction();
+
         if (inventory == bottomInventory && menu.getData().hasFlag(MenuFlag.LOWER_INTERACTION)) {
             return;
         }
@@ -131,6 +184,46 @@ public class MenuListener implements Listener {
         event.setCancelled(!menu.getData().hasFlag(MenuFlag.ALLOW_INPUT));
     }
 
+    private void markStale(@NonNull Inventory inventory) {
+        MenuInventory menuInventory = getPage(inventory);
+
+        if (menuInventory == null) {
+            return;
+        }
+
+        menuInventory.markStale();
+    }
+
+    /**
+     * Resolve the menu an inventory belongs to. Only viewed pages are
+     * registered with the {@link MenuManager}, anything else a menu
+     * holds is resolved through its holder.
+     */
+    private @Nullable Menu getMenu(@NonNull Inventory inventory) {
+        Menu menu = MenuManager.getInstance().getMenu(inventory);
+
+        if (menu != null) {
+            return menu;
+        }
+
+        return inventory.getHolder() instanceof Menu holder ? holder : null;
+    }
+
+    private @Nullable MenuInventory getPage(@NonNull Inventory inventory) {
+        MenuInventory page = MenuManager.getInstance().getPage(inventory);
+
+        if (page != null) {
+            return page;
+        }
+
+        return inventory.getHolder() instanceof Menu holder ? holder.getMenuInventory(inventory) : null;
+    }
+
+    /**
+     * Pages are only registered with the {@link MenuManager} while
+     * viewed, so opening resolves the page through its holder,
+     * which registers it once the viewer is added.
+     */
     @EventHandler
     public void onOpen(InventoryOpenEvent event) {
         Inventory inventory = event.getInventory();
@@ -139,13 +232,32 @@ public class MenuListener implements Listener {
             return;
         }
 
-        menu.getViewers().add(event.getPlayer().getUniqueId());
+        MenuInventory page = menu.getMenuInventory(inventory);
+
+        if (page == null) {
+            return;
+        }
+
+        boolean firstViewer = menu.addViewer(page, event.getPlayer().getUniqueId());
+        menu.markInteraction();
+
+        if (page.consumeRenderPending()) {
+            menu.getUpdateTask().renderPage(page);
+        }
+
+        if (menu.getTitleUpdateTask() != null) {
+            menu.getTitleUpdateTask().requestViewerSync();
+        }
+
+        if (!firstViewer) {
+            return;
+        }
 
         if (menu.getTitleUpdateTask() != null && !menu.getTitleUpdateTask().isActive()) {
             menu.getTitleUpdateTask().start(plugin);
         }
 
-        if (menu.getUpdateTask() == null || menu.getUpdateTask().isActive()) {
+        if (menu.getUpdateTask().isActive()) {
             return;
         }
 
@@ -156,18 +268,28 @@ public class MenuListener implements Listener {
     public void onClose(InventoryCloseEvent event) {
         Inventory inventory = event.getInventory();
 
-        if (!(inventory.getHolder() instanceof Menu menu)) {
+        if (inventory.getHolder() instanceof PagedMenuView<?> pagedView) {
+            pagedView.close();
+            return;
+        }
+
+        Menu menu = getMenu(inventory);
+
+        if (menu == null) {
             return;
         }
 
-        menu.getViewers().remove(event.getPlayer().getUniqueId());
+        MenuInventory page = getPage(inventory);
 
-        if (event.getViewers().stream().filter(p -> !p.getUniqueId().equals(event.getPlayer().getUniqueId())).count() == 0) {
+        if (page != null && menu.removeViewer(page, event.getPlayer().getUniqueId())) {
             menu.getUpdateTask().cancelTask();
 
             if (menu.getTitleUpdateTask() != null) {
                 menu.getTitleUpdateTask().cancel();
             }
+
+            menu.markInteraction();
+            MenuLifecycleManager.getInstance(plugin).track(menu);
         }
 
         if (menu.getData().getCloseAction() == null) {
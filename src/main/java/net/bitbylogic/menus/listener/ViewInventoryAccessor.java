@@ -0,0 +1,61 @@
+package net.bitbylogic.menus.listener;
+
+import lombok.NonNull;
+import net.bitbylogic.utils.inventory.InventoryUtil;
+import org.bukkit.event.inventory.InventoryEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Reads the top and bottom inventory of an event's view through
+ * method handles resolved once, instead of looking the methods up
+ * by name on every event.
+ * <p>
+ * {@link InventoryView} is a class on older servers and an interface
+ * on newer ones, so the accessors can't be called directly. If they
+ * can't be resolved, {@link InventoryUtil} is used instead.
+ */
+final class ViewInventoryAccessor {
+
+    private static final MethodHandle TOP_INVENTORY = resolve("getTopInventory");
+    private static final MethodHandle BOTTOM_INVENTORY = resolve("getBottomInventory");
+
+    private ViewInventoryAccessor() {
+    }
+
+    static Inventory getTopInventory(@NonNull InventoryEvent event) {
+        return get(event, TOP_INVENTORY, "getTopInventory");
+    }
+
+    static Inventory getBottomInventory(@NonNull InventoryEvent event) {
+        return get(event, BOTTOM_INVENTORY, "getBottomInventory");
+    }
+
+    private static Inventory get(@NonNull InventoryEvent event, @Nullable MethodHandle handle, @NonNull String methodName) {
+        if (handle == null) {
+            return InventoryUtil.getViewInventory(event, methodName);
+        }
+
+        try {
+            return (Inventory) handle.invokeExact((Object) event.getView());
+        } catch (Throwable throwable) {
+            return InventoryUtil.getViewInventory(event, methodName);
+        }
+    }
+
+    private static @Nullable MethodHandle resolve(@NonNull String methodName) {
+        try {
+            return MethodHandles.publicLookup()
+                    .findVirtual(InventoryView.class, methodName, MethodType.methodType(Inventory.class))
+                    .asType(MethodType.methodType(Inventory.class, Object.class));
+        } catch (ReflectiveOperationException | IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,10 @@
+package net.bitbylogic.menus.paged;
+
+import lombok.NonNull;
+import org.bukkit.event.inventory.InventoryClickEvent;
+
+public interface PagedClickAction<T> {
+
+    void onClick(@NonNull InventoryClickEvent event, @NonNull T element);
+
+}
@@ -0,0 +1,55 @@
+package net.bitbylogic.menus.paged;
+
+import lombok.NonNull;
+
+import java.util.List;
+
+/**
+ * The elements shown by a {@link PagedMenu}, fetched one page at a time.
+ *
+ * @param <T> The element type.
+ */
+public interface PagedDataSource<T> {
+
+    /**
+     * @return The total number of elements.
+     */
+    int size();
+
+    /**
+     * Get a range of elements, called whenever a viewer's page is rendered.
+     *
+     * @param offset The index of the first element.
+     * @param limit The maximum number of elements to return.
+     * @return The elements in the range.
+     */
+    List<T> getRange(int offset, int limit);
+
+    /**
+     * Create a data source backed by a list, pages are views of the
+     * list so changes to it are picked up on the next render.
+     *
+     * @param elements The backing list.
+     * @return The data source.
+     */
+    static <T> PagedDataSource<T> of(@NonNull List<T> elements) {
+        return new PagedDataSource<>() {
+            @Override
+            public int size() {
+                return elements.size();
+            }
+
+            @Override
+            public List<T> getRange(int offset, int limit) {
+                int size = elements.size();
+
+                if (offset >= size || limit <= 0) {
+                    return List.of();
+                }
+
+                return elements.subList(Math.max(0, offset), Math.min(size, offset + limit));
+            }
+        };
+    }
+
+}
@@ -0,0 +1,16 @@
+package net.bitbylogic.menus.paged;
+
+import lombok.NonNull;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+public interface PagedItemRenderer<T> {
+
+    /**
+     * @param element The element to render.
+     * @param index The element's index in the data source.
+     * @return The stack to show, or null to leave the slot empty.
+     */
+    @Nullable ItemStack render(@NonNull T element, int index);
+
+}
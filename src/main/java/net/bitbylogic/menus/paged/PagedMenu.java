@@ -0,0 +1,165 @@
+package net.bitbylogic.menus.paged;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.menus.MenuRows;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A paginated menu whose pages are rendered on demand from a
+ * {@link PagedDataSource}.
+ * <p>
+ * Unlike {@link net.bitbylogic.menus.Menu}, no page exists up front.
+ * Each viewer gets a single inventory that is rewritten when they
+ * change pages, and only the elements of the page being viewed are
+ * fetched, so memory use doesn't grow with the data set.
+ * <p>
+ * The title may use the {@code <page>} and {@code <pages>} placeholders.
+ *
+ * @param <T> The element type.
+ */
+@Getter
+public class PagedMenu<T> {
+
+    private final @NonNull String id;
+    private final @NonNull String title;
+    private final int size;
+
+    private final @NonNull PagedDataSource<T> dataSource;
+    private final @NonNull PagedItemRenderer<T> renderer;
+
+    private final @NonNull List<Integer> contentSlots;
+    private final @NonNull Map<Integer, ItemStack> staticItems;
+
+    private @Nullable PagedClickAction<T> clickAction;
+
+    private @Nullable ItemStack previousPageItem;
+    private int previousPageSlot = -1;
+
+    private @Nullable ItemStack nextPageItem;
+    private int nextPageSlot = -1;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, PagedMenuView<T>> views = new HashMap<>();
+
+    public PagedMenu(@NonNull String id, @NonNull String title, @NonNull MenuRows menuRows,
+                     @NonNull PagedDataSource<T> dataSource, @NonNull PagedItemRenderer<T> renderer) {
+        this.id = id;
+        this.title = title;
+        this.size = menuRows.getSize();
+        this.dataSource = dataSource;
+        this.renderer = renderer;
+
+        this.contentSlots = new ArrayList<>();
+        this.staticItems = new HashMap<>();
+
+        int contentSize = size > 9 ? size - 9 : size;
+
+        for (int i = 0; i < contentSize; i++) {
+            contentSlots.add(i);
+        }
+    }
+
+    public PagedMenu<T> withContentSlots(@NonNull List<Integer> contentSlots) {
+        this.contentSlots.clear();
+        this.contentSlots.addAll(contentSlots);
+        return this;
+    }
+
+    public PagedMenu<T> withStaticItem(int slot, @NonNull ItemStack item) {
+        this.staticItems.put(slot, item);
+        return this;
+    }
+
+    public PagedMenu<T> withClickAction(@Nullable PagedClickAction<T> clickAction) {
+        this.clickAction = clickAction;
+        return this;
+    }
+
+    public PagedMenu<T> withPreviousPageItem(int slot, @NonNull ItemStack item) {
+        this.previousPageSlot = slot;
+        this.previousPageItem = item;
+        return this;
+    }
+
+    public PagedMenu<T> withNextPageItem(int slot, @NonNull ItemStack item) {
+        this.nextPageSlot = slot;
+        this.nextPageItem = item;
+        return this;
+    }
+
+    /**
+     * @return The number of elements shown per page.
+     */
+    public int getPageSize() {
+        return contentSlots.size();
+    }
+
+    /**
+     * @return The number of pages, at least one.
+     */
+    public int getPageCount() {
+        int pageSize = getPageSize();
+
+        if (pageSize == 0) {
+            return 1;
+        }
+
+        return Math.max(1, (dataSource.size() + pageSize - 1) / pageSize);
+    }
+
+    public PagedMenuView<T> open(@NonNull Player player) {
+        return open(player, 0);
+    }
+
+    /**
+     * Show a page to a player, reusing their window if
+     * they already have this menu open.
+     *
+     * @param player The player to show the page to.
+     * @param page The page index, clamped to the available pages.
+     * @return The player's view of this menu.
+     */
+    public PagedMenuView<T> open(@NonNull Player player, int page) {
+        PagedMenuView<T> view = views.get(player.getUniqueId());
+
+        if (view == null) {
+            view = new PagedMenuView<>(this, player.getUniqueId(), page);
+            views.put(player.getUniqueId(), view);
+        } else {
+            view.setPage(page);
+        }
+
+        if (player.getOpenInventory().getTopInventory() != view.getInventory()) {
+            player.openInventory(view.getInventory());
+        }
+
+        return view;
+    }
+
+    public Optional<PagedMenuView<T>> getView(@NonNull UUID viewer) {
+        return Optional.ofNullable(views.get(viewer));
+    }
+
+    public Collection<PagedMenuView<T>> getViews() {
+        return Collections.unmodifiableCollection(views.values());
+    }
+
+    /**
+     * Re-render the current page of every open view,
+     * used after the data source changed.
+     */
+    public void refresh() {
+        new ArrayList<>(views.values()).forEach(PagedMenuView::render);
+    }
+
+    void removeView(@NonNull PagedMenuView<T> view) {
+        views.remove(view.getViewer(), view);
+    }
+
+}
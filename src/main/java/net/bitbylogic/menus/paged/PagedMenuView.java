@@ -0,0 +1,186 @@
+package net.bitbylogic.menus.paged;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.menus.text.MessageTemplateCache;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One viewer's window into a {@link PagedMenu}, holding the
+ * inventory they see and the elements of their current page.
+ *
+ * @param <T> The element type.
+ */
+@Getter
+public class PagedMenuView<T> implements InventoryHolder {
+
+    private final @NonNull PagedMenu<T> menu;
+    private final @NonNull UUID viewer;
+
+    private Inventory inventory;
+    private int page;
+
+    @Getter(AccessLevel.NONE)
+    private List<T> elements = List.of();
+
+    PagedMenuView(@NonNull PagedMenu<T> menu, @NonNull UUID viewer, int page) {
+        this.menu = menu;
+        this.viewer = viewer;
+        this.page = page;
+
+        render();
+    }
+
+    @Override
+    public @NotNull Inventory getInventory() {
+        return inventory;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+        render();
+    }
+
+    public void nextPage() {
+        setPage(page + 1);
+    }
+
+    public void previousPage() {
+        setPage(page - 1);
+    }
+
+    /**
+     * Fetch and write the current page, the whole
+     * inventory is written in one call.
+     */
+    public void render() {
+        int pageCount = menu.getPageCount();
+        page = Math.max(0, Math.min(page, pageCount - 1));
+
+        String title = MessageTemplateCache.getInstance().render(menu.getTitle(), List.of(
+                Placeholder.unparsed("page", page + 1 + ""),
+                Placeholder.unparsed("pages", pageCount + "")
+        ));
+
+        if (inventory == null) {
+            inventory = Bukkit.createInventory(this, menu.getSize(), title);
+        } else {
+            updateTitle(title);
+        }
+
+        List<Integer> contentSlots = menu.getContentSlots();
+        int offset = page * contentSlots.size();
+
+        elements = contentSlots.isEmpty() ? List.of() : new ArrayList<>(menu.getDataSource().getRange(offset, contentSlots.size()));
+
+        ItemStack[] contents = new ItemStack[inventory.getSize()];
+
+        menu.getStaticItems().forEach((slot, item) -> {
+            if (slot >= 0 && slot < contents.length) {
+                contents[slot] = item;
+            }
+        });
+
+        for (int i = 0; i < contentSlots.size() && i < elements.size(); i++) {
+            int slot = contentSlots.get(i);
+
+            if (slot < 0 || slot >= contents.length) {
+                continue;
+            }
+
+            contents[slot] = menu.getRenderer().render(elements.get(i), offset + i);
+        }
+
+        if (page > 0 && menu.getPreviousPageItem() != null && menu.getPreviousPageSlot() >= 0 && menu.getPreviousPageSlot() < contents.length) {
+            contents[menu.getPreviousPageSlot()] = menu.getPreviousPageItem();
+        }
+
+        if (page < pageCount - 1 && menu.getNextPageItem() != null && menu.getNextPageSlot() >= 0 && menu.getNextPageSlot() < contents.length) {
+            contents[menu.getNextPageSlot()] = menu.getNextPageItem();
+        }
+
+        inventory.setContents(contents);
+    }
+
+    /**
+     * Get the element shown in a slot of the current page.
+     *
+     * @param slot The slot to look up.
+     * @return The element, or null if the slot shows none.
+     */
+    public @Nullable T getElement(int slot) {
+        int index = menu.getContentSlots().indexOf(slot);
+        return index == -1 || index >= elements.size() ? null : elements.get(index);
+    }
+
+    public void onClick(@NonNull InventoryClickEvent event) {
+        if (event.getClickedInventory() != inventory) {
+            if (event.isShiftClick() || event.getClick() == ClickType.DOUBLE_CLICK) {
+                event.setCancelled(true);
+            }
+
+            return;
+        }
+
+        event.setCancelled(true);
+
+        int slot = event.getSlot();
+
+        if (slot == menu.getPreviousPageSlot() && page > 0) {
+            previousPage();
+            return;
+        }
+
+        if (slot == menu.getNextPageSlot() && page < menu.getPageCount() - 1) {
+            nextPage();
+            return;
+        }
+
+        T element = getElement(slot);
+
+        if (element == null || menu.getClickAction() == null) {
+            return;
+        }
+
+        menu.getClickAction().onClick(event, element);
+    }
+
+    /**
+     * Release this view, called once the viewer closed it.
+     */
+    public void close() {
+        menu.removeView(this);
+    }
+
+    private void updateTitle(@NonNull String title) {
+        Player player = Bukkit.getPlayer(viewer);
+
+        if (player == null) {
+            return;
+        }
+
+        InventoryView view = player.getOpenInventory();
+
+        if (view.getTopInventory() != inventory || view.getTitle().equals(title)) {
+            return;
+        }
+
+        view.setTitle(title);
+    }
+
+}
@@ -0,0 +1,162 @@
+package net.bitbylogic.menus.task;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import net.bitbylogic.menus.Menu;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unloads the pages of menus nobody viewed for a while, the pages
+ * are generated again the next time the menu is used.
+ * <p>
+ * Menus are tracked once their last viewer leaves, only weakly so
+ * tracked menus can still be garbage collected. Must only be used
+ * from the main thread.
+ */
+public class MenuLifecycleManager {
+
+    private static MenuLifecycleManager instance;
+
+    private final JavaPlugin plugin;
+    private final Set<Menu> trackedMenus = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /**
+     * How long a menu must go without viewers or interaction before its pages are unloaded.
+     */
+    @Getter
+    @Setter
+    private long idleMillis = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * How often tracked menus are checked, in ticks.
+     */
+    @Getter
+    private int checkPeriod = 100;
+
+    @Getter
+    private long unloadedMenus;
+
+    private ScheduledMenuTask task;
+
+    private MenuLifecycleManager(@NonNull JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the shared manager, creating it for the provided plugin
+     * if none exists or the previous owner was disabled.
+     *
+     * @param plugin The plugin to run checks under.
+     * @return The shared manager.
+     */
+    public static MenuLifecycleManager getInstance(@NonNull JavaPlugin plugin) {
+        if (instance != null && instance.plugin.isEnabled()) {
+            return instance;
+        }
+
+        if (instance != null) {
+            instance.stop();
+        }
+
+        instance = new MenuLifecycleManager(plugin);
+        return instance;
+    }
+
+    /**
+     * Start watching a menu, its pages are unloaded once it
+     * has been idle for {@link #getIdleMillis()}.
+     *
+     * @param menu The menu to watch.
+     */
+    public void track(@NonNull Menu menu) {
+        trackedMenus.add(menu);
+
+        if (task == null || task.isCancelled()) {
+            task = MenuScheduler.getInstance(plugin).schedule(this::unloadIdle, checkPeriod);
+        }
+    }
+
+    public void untrack(@NonNull Menu menu) {
+        trackedMenus.remove(menu);
+    }
+
+    public void setCheckPeriod(int checkPeriod) {
+        this.checkPeriod = Math.max(1, checkPeriod);
+
+        if (task == null) {
+            return;
+        }
+
+        stop();
+        task = MenuScheduler.getInstance(plugin).schedule(this::unloadIdle, this.checkPeriod);
+    }
+
+    /**
+     * @return The menus currently being watched.
+     */
+    public List<Menu> getTrackedMenus() {
+        return new ArrayList<>(trackedMenus);
+    }
+
+    /**
+     * Unload every tracked menu that is idle.
+     *
+     * @return The number of menus unloaded.
+     */
+    public int unloadIdle() {
+        long now = System.currentTimeMillis();
+        int unloaded = 0;
+
+        Iterator<Menu> iterator = trackedMenus.iterator();
+
+        while (iterator.hasNext()) {
+            Menu menu = iterator.next();
+
+            if (menu.getViewerCount() > 0) {
+                iterator.remove();
+                continue;
+            }
+
+            if (now - menu.getLastInteraction() < idleMillis) {
+                continue;
+            }
+
+            iterator.remove();
+
+            if (menu.unloadInventories()) {
+                unloaded++;
+            }
+        }
+
+        unloadedMenus += unloaded;
+
+        if (trackedMenus.isEmpty()) {
+            stop();
+        }
+
+        return unloaded;
+    }
+
+    /**
+     * @return A memory report for every tracked menu.
+     */
+    public List<MenuMemoryReport> getMemoryReports() {
+        List<MenuMemoryReport> reports = new ArrayList<>();
+        trackedMenus.forEach(menu -> reports.add(menu.getMemoryReport()));
+        return reports;
+    }
+
+    private void stop() {
+        if (task == null) {
+            return;
+        }
+
+        task.cancel();
+        task = null;
+    }
+
+}
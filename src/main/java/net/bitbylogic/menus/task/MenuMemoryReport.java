@@ -0,0 +1,38 @@
+package net.bitbylogic.menus.task;
+
+/**
+ * A snapshot of what a menu keeps in memory.
+ *
+ * @param menuId The menu's id.
+ * @param loadedPages The number of generated pages.
+ * @param unloadedPages The number of pages waiting to be regenerated.
+ * @param pageSize The number of slots per page.
+ * @param items The number of items in the menu.
+ * @param storedItems The number of items in the menu's item storage.
+ * @param sourceInventoryReferences The number of page references held by items.
+ * @param occupiedSlots The number of non-empty slots across loaded pages.
+ * @param unloadedStacks The number of stacks kept for unloaded pages.
+ */
+public record MenuMemoryReport(String menuId, int loadedPages, int unloadedPages, int pageSize, int items, int storedItems,
+                               int sourceInventoryReferences, int occupiedSlots, int unloadedStacks) {
+
+    private static final long PAGE_BYTES = 512;
+    private static final long SLOT_BYTES = 24;
+    private static final long STACK_BYTES = 160;
+    private static final long ITEM_BYTES = 384;
+    private static final long REFERENCE_BYTES = 8;
+
+    /**
+     * A rough estimate of the retained heap, meant for comparing
+     * menus rather than exact accounting.
+     *
+     * @return The estimated size in bytes.
+     */
+    public long getEstimatedBytes() {
+        return loadedPages * (PAGE_BYTES + pageSize * SLOT_BYTES)
+                + (long) (occupiedSlots + unloadedStacks) * STACK_BYTES
+                + (long) (items + storedItems) * ITEM_BYTES
+                + (long) sourceInventoryReferences * REFERENCE_BYTES;
+    }
+
+}
@@ -0,0 +1,361 @@
+package net.bitbylogic.menus.task;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.inventory.MenuInventory;
+import net.bitbylogic.menus.item.MenuItem;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Queues menu changes made from any thread and applies them on the
+ * main thread, every change queued before a tick in one batch.
+ * <p>
+ * Changes are applied in the order they were queued, redundant
+ * changes within a batch are merged. Only the last value of a
+ * placeholder is applied, similar stacks added one after another
+ * are distributed together and items removed from the menu they
+ * were added to in the same batch are never added. The returned
+ * futures complete on the main thread once the change was applied.
+ */
+public class MenuMutationQueue {
+
+    private static MenuMutationQueue instance;
+
+    private final JavaPlugin plugin;
+
+    private final Queue<Mutation> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    /**
+     * The number of changes applied, and the number merged into another change.
+     */
+    @Getter
+    private long appliedMutations;
+
+    @Getter
+    private long mergedMutations;
+
+    private MenuMutationQueue(@NonNull JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the shared queue, creating it for the provided plugin
+     * if none exists or the previous owner was disabled. Changes
+     * still queued on a replaced queue move to the new one.
+     *
+     * @param plugin The plugin to drain the queue under.
+     * @return The shared queue.
+     */
+    public static synchronized MenuMutationQueue getInstance(@NonNull JavaPlugin plugin) {
+        if (instance != null && instance.plugin.isEnabled()) {
+            return instance;
+        }
+
+        MenuMutationQueue previous = instance;
+
+        instance = new MenuMutationQueue(plugin);
+
+        if (previous != null) {
+            Mutation mutation;
+
+            while ((mutation = previous.pending.poll()) != null) {
+                instance.pending.add(mutation);
+            }
+
+            if (!instance.pending.isEmpty()) {
+                instance.scheduleDrain();
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * Apply every change still queued and drop the shared queue, if
+     * one exists. Must be called from the main thread.
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance == null) {
+            return;
+        }
+
+        instance.drain();
+        instance = null;
+    }
+
+    public CompletableFuture<Void> addItem(@NonNull Menu menu, @NonNull MenuItem item) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        enqueue(new AddItem(menu, item, future));
+        return future;
+    }
+
+    /**
+     * @return A future completing with whether the item was part of the menu.
+     */
+    public CompletableFuture<Boolean> removeItem(@NonNull Menu menu, @NonNull MenuItem item) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        enqueue(new RemoveItem(menu, item, future));
+        return future;
+    }
+
+    /**
+     * @return A future completing with the amount that didn't fit.
+     */
+    public CompletableFuture<Integer> addItemStack(@NonNull Menu menu, @NonNull ItemStack stack) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        enqueue(new AddItemStack(menu, stack.clone(), future));
+        return future;
+    }
+
+    public CompletableFuture<Void> setPlaceholder(@NonNull Menu menu, @NonNull TagResolver.Single placeholder) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        enqueue(new SetPlaceholder(menu, placeholder.key(), placeholder, new ArrayList<>(List.of(future))));
+        return future;
+    }
+
+    public CompletableFuture<Void> removePlaceholder(@NonNull Menu menu, @NonNull String key) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        enqueue(new SetPlaceholder(menu, key, null, new ArrayList<>(List.of(future))));
+        return future;
+    }
+
+    /**
+     * @return The number of changes waiting to be applied.
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Apply every queued change. Must be called from the main thread,
+     * it's called automatically on the tick after a change is queued.
+     *
+     * @return The number of changes applied.
+     */
+    public int drain() {
+        drainScheduled.set(false);
+
+        List<Mutation> batch = new ArrayList<>();
+        Mutation polled;
+
+        while ((polled = pending.poll()) != null) {
+            batch.add(polled);
+        }
+
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Mutation> merged = merge(batch);
+
+        for (int i = 0; i < merged.size(); i++) {
+            Mutation mutation = merged.get(i);
+
+            try {
+                switch (mutation) {
+                    case AddItem addItem -> {
+                        addItem.menu().addItem(addItem.item());
+                        addItem.future().complete(null);
+                    }
+                    case RemoveItem removeItem -> removeItem.future().complete(removeItem.menu().removeItem(removeItem.item()));
+                    case AddItemStack ignored -> {
+                        // Only stacks added one after another are grouped, so they keep their place between other changes
+                        Map<Menu, List<AddItemStack>> stacks = new IdentityHashMap<>();
+
+                        while (i < merged.size() && merged.get(i) instanceof AddItemStack addItemStack) {
+                            stacks.computeIfAbsent(addItemStack.menu(), menu -> new ArrayList<>()).add(addItemStack);
+                            i++;
+                        }
+
+                        i--;
+                        stacks.forEach(this::applyItemStacks);
+                    }
+                    case SetPlaceholder setPlaceholder -> {
+                        if (setPlaceholder.placeholder() == null) {
+                            setPlaceholder.menu().getData().removePlaceholder(setPlaceholder.key());
+                        } else {
+                            setPlaceholder.menu().getData().setPlaceholder(setPlaceholder.placeholder());
+                        }
+
+                        setPlaceholder.futures().forEach(future -> future.complete(null));
+                    }
+                }
+            } catch (Throwable throwable) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to apply change to menu '" + mutation.menu().getId() + "'", throwable);
+                mutation.fail(throwable);
+            }
+        }
+
+        appliedMutations += merged.size();
+        return merged.size();
+    }
+
+    private List<Mutation> merge(@NonNull List<Mutation> batch) {
+        List<Mutation> merged = new ArrayList<>(batch.size());
+
+        Map<Menu, Map<MenuItem, AddItem>> addedItems = new IdentityHashMap<>();
+        Map<Menu, Map<String, SetPlaceholder>> placeholders = new IdentityHashMap<>();
+
+        for (Mutation mutation : batch) {
+            switch (mutation) {
+                case AddItem addItem -> addedItems.computeIfAbsent(addItem.menu(), menu -> new IdentityHashMap<>())
+                        .put(addItem.item(), addItem);
+                case RemoveItem removeItem -> {
+                    Map<MenuItem, AddItem> menuItems = addedItems.get(removeItem.menu());
+                    AddItem addItem = menuItems == null ? null : menuItems.remove(removeItem.item());
+
+                    if (addItem != null) {
+                        merged.remove(addItem);
+                        mergedMutations += 2;
+
+                        addItem.future().complete(null);
+                        removeItem.future().complete(true);
+                        continue;
+                    }
+                }
+                case SetPlaceholder setPlaceholder -> {
+                    SetPlaceholder previous = placeholders.computeIfAbsent(setPlaceholder.menu(), menu -> new HashMap<>())
+                            .put(setPlaceholder.key(), setPlaceholder);
+
+                    if (previous != null) {
+                        merged.remove(previous);
+                        mergedMutations++;
+
+                        setPlaceholder.futures().addAll(previous.futures());
+                    }
+                }
+                case AddItemStack ignored -> {
+                }
+            }
+
+            merged.add(mutation);
+        }
+
+        return merged;
+    }
+
+    private void applyItemStacks(@NonNull Menu menu, @NonNull List<AddItemStack> requests) {
+        Map<ItemStack, List<AddItemStack>> similar = new LinkedHashMap<>();
+
+        for (AddItemStack request : requests) {
+            similar.computeIfAbsent(MenuInventory.getSimilarityKey(request.stack()), key -> new ArrayList<>()).add(request);
+        }
+
+        mergedMutations += requests.size() - similar.size();
+
+        similar.forEach((key, similarRequests) -> {
+            try {
+                distributeItemStacks(menu, key, similarRequests);
+            } catch (Throwable throwable) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to add items to menu '" + menu.getId() + "'", throwable);
+                similarRequests.forEach(request -> request.fail(throwable));
+            }
+        });
+    }
+
+    private void distributeItemStacks(@NonNull Menu menu, @NonNull ItemStack key, @NonNull List<AddItemStack> similarRequests) {
+        long total = 0;
+
+        for (AddItemStack request : similarRequests) {
+            total += request.stack().getAmount();
+        }
+
+        long leftover = 0;
+
+        while (total > 0) {
+            ItemStack stack = key.clone();
+            stack.setAmount((int) Math.min(Integer.MAX_VALUE, total));
+            total -= stack.getAmount();
+
+            for (ItemStack remaining : menu.addItemStacks(List.of(stack))) {
+                leftover += remaining.getAmount();
+            }
+        }
+
+        // Earlier requests are filled first, leftovers go to the latest
+        for (int i = similarRequests.size() - 1; i >= 0; i--) {
+            AddItemStack request = similarRequests.get(i);
+            int requestLeftover = (int) Math.min(leftover, request.stack().getAmount());
+
+            leftover -= requestLeftover;
+            request.future().complete(requestLeftover);
+        }
+    }
+
+    private void enqueue(@NonNull Mutation mutation) {
+        pending.add(mutation);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            Bukkit.getScheduler().runTask(plugin, this::drain);
+        } catch (IllegalPluginAccessException exception) {
+            // The plugin was disabled, the change is applied on shutdown or by the next queue.
+            drainScheduled.set(false);
+        }
+    }
+
+    private sealed interface Mutation permits AddItem, RemoveItem, AddItemStack, SetPlaceholder {
+
+        Menu menu();
+
+        void fail(@NonNull Throwable throwable);
+
+    }
+
+    private record AddItem(@NonNull Menu menu, @NonNull MenuItem item, @NonNull CompletableFuture<Void> future) implements Mutation {
+
+        @Override
+        public void fail(@NonNull Throwable throwable) {
+            future.completeExceptionally(throwable);
+        }
+
+    }
+
+    private record RemoveItem(@NonNull Menu menu, @NonNull MenuItem item, @NonNull CompletableFuture<Boolean> future) implements Mutation {
+
+        @Override
+        public void fail(@NonNull Throwable throwable) {
+            future.completeExceptionally(throwable);
+        }
+
+    }
+
+    private record AddItemStack(@NonNull Menu menu, @NonNull ItemStack stack, @NonNull CompletableFuture<Integer> future) implements Mutation {
+
+        @Override
+        public void fail(@NonNull Throwable throwable) {
+            future.completeExceptionally(throwable);
+        }
+
+    }
+
+    private record SetPlaceholder(@NonNull Menu menu, @NonNull String key, @Nullable TagResolver.Single placeholder,
+                                  @NonNull List<CompletableFuture<Void>> futures) implements Mutation {
+
+        @Override
+        public void fail(@NonNull Throwable throwable) {
+            futures.forEach(future -> future.completeExceptionally(throwable));
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package net.bitbylogic.menus.task;
+
+import lombok.Getter;
+
+/**
+ * Counters describing how much work the {@link MenuUpdateTask}
+ * did, and skipped, on each run.
+ */
+@Getter
+public class MenuRenderStats {
+
+    private long runs;
+    private long fullRefreshes;
+
+    private long renderedItems;
+    private long skippedItems;
+    private long slotWrites;
+
+    private int lastRendered;
+    private int lastSkipped;
+    private int lastSlotWrites;
+
+    void record(boolean fullRefresh, int rendered, int skipped, int slotWrites) {
+        this.runs++;
+
+        if (fullRefresh) {
+            this.fullRefreshes++;
+        }
+
+        this.renderedItems += rendered;
+        this.skippedItems += skipped;
+        this.slotWrites += slotWrites;
+
+        this.lastRendered = rendered;
+        this.lastSkipped = skipped;
+        this.lastSlotWrites = slotWrites;
+    }
+
+    /**
+     * @return The fraction of items that didn't need rendering, from 0 to 1.
+     */
+    public double getSkipRatio() {
+        long total = renderedItems + skippedItems;
+        return total == 0 ? 0 : (double) skippedItems / total;
+    }
+
+    public void reset() {
+        runs = 0;
+        fullRefreshes = 0;
+        renderedItems = 0;
+        skippedItems = 0;
+        slotWrites = 0;
+        lastRendered = 0;
+        lastSkipped = 0;
+        lastSlotWrites = 0;
+    }
+
+}
@@ -0,0 +1,238 @@
+package net.bitbylogic.menus.task;
+
+import lombok.Getter;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Writes menu files on a background thread.
+ * <p>
+ * Callers snapshot a menu's state and hand it over, the snapshot is
+ * serialized and written to a temporary file which then replaces the
+ * target. Saves of the same file within the coalescing window are
+ * merged, only the latest snapshot is written.
+ */
+public class MenuSaveQueue {
+
+    public static final long DEFAULT_COALESCE_MILLIS = 250;
+
+    private static MenuSaveQueue instance;
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+            runnable -> Thread.ofPlatform().daemon().name("Bits-Menus Save").unstarted(runnable));
+
+    private final Map<Path, PendingSave> pending = new HashMap<>();
+    private final Object writeLock = new Object();
+
+    @Getter
+    private volatile long coalesceMillis = DEFAULT_COALESCE_MILLIS;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private MenuSaveQueue() {
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    public static synchronized MenuSaveQueue getInstance() {
+        if (instance == null || instance.executor.isShutdown()) {
+            instance = new MenuSaveQueue();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Write every pending save and stop the shared queue, if one exists.
+     */
+    public static synchronized void shutdownInstance() {
+        if (instance == null) {
+            return;
+        }
+
+        instance.shutdown();
+        instance = null;
+    }
+
+    /**
+     * Queue a save, replacing a pending save of the same file. Once the
+     * queue is shut down saves are written on the calling thread.
+     *
+     * @param file The file to write.
+     * @param snapshot The menu state to serialize.
+     * @return A future completed once a snapshot at least as recent has been written.
+     */
+    public CompletableFuture<Void> save(@NonNull Path file, @NonNull Snapshot snapshot) {
+        Path path = file.toAbsolutePath().normalize();
+
+        synchronized (pending) {
+            if (!executor.isShutdown()) {
+                PendingSave save = pending.get(path);
+
+                if (save != null) {
+                    save.snapshot = snapshot;
+                    coalesced.incrementAndGet();
+                    return save.future;
+                }
+
+                save = new PendingSave(snapshot);
+                pending.put(path, save);
+
+                try {
+                    executor.schedule(() -> write(path), coalesceMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException ignored) {
+                    // Shut down since the check, the shutdown flush writes it.
+                }
+
+                return save.future;
+            }
+        }
+
+        synchronized (writeLock) {
+            try {
+                writeAtomically(path, snapshot.serialize());
+                writes.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            } catch (Exception exception) {
+                Bukkit.getLogger().log(Level.WARNING, "Failed to save menu file '" + path.getFileName() + "'", exception);
+                return CompletableFuture.failedFuture(exception);
+            }
+        }
+    }
+
+    /**
+     * Write every pending save on the calling thread.
+     */
+    public void flush() {
+        List<Path> paths;
+
+        synchronized (pending) {
+            paths = new ArrayList<>(pending.keySet());
+        }
+
+        paths.forEach(this::write);
+    }
+
+    /**
+     * Write every pending save and stop the background thread.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        flush();
+
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void setCoalesceMillis(long coalesceMillis) {
+        this.coalesceMillis = Math.max(0, coalesceMillis);
+    }
+
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * @return The number of saves merged into an already pending one.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private void write(@NonNull Path path) {
+        synchronized (writeLock) {
+            PendingSave save;
+
+            synchronized (pending) {
+                save = pending.remove(path);
+            }
+
+            if (save == null) {
+                return;
+            }
+
+            try {
+                writeAtomically(path, save.snapshot.serialize());
+                writes.incrementAndGet();
+                save.future.complete(null);
+            } catch (Exception exception) {
+                Bukkit.getLogger().log(Level.WARNING, "Failed to save menu file '" + path.getFileName() + "'", exception);
+                save.future.completeExceptionally(exception);
+            }
+        }
+    }
+
+    /**
+     * Write a file through a temporary file which then replaces it,
+     * so readers never see a partially written file.
+     *
+     * @param path The file to write.
+     * @param content The file's new content.
+     * @throws IOException If the file can't be written.
+     */
+    public static void writeAtomically(@NonNull Path path, byte @NonNull [] content) throws IOException {
+        Path parent = path.getParent();
+        Files.createDirectories(parent);
+
+        Path temporary = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+        try {
+            Files.write(temporary, content);
+
+            try {
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * A copy of a menu's state, serialized on the save thread.
+     */
+    @FunctionalInterface
+    public interface Snapshot {
+
+        byte[] serialize() throws IOException;
+
+    }
+
+    private static class PendingSave {
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private volatile Snapshot snapshot;
+
+        private PendingSave(@NonNull Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+    }
+
+}
@@ -0,0 +1,347 @@
+package net.bitbylogic.menus.task;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.item.AsyncItemUpdateQueue;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.IllegalPluginAccessException;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * A single library-wide ticker that drives every menu task.
+ * <p>
+ * Tasks sharing a period are spread across the ticks of that
+ * period, each new task joins the least loaded phase, so the
+ * cost of updating many menus stays flat instead of landing
+ * on the same tick.
+ * <p>
+ * Each tick runs due tasks until the tick budget is spent, the
+ * remaining tasks carry over to the next tick ahead of newly due
+ * ones. While the server is lagging, tasks belonging to menus
+ * nobody interacted with recently have their period stretched.
+ * Items loaded by async providers are applied at the start of
+ * each tick, or by a one-off task while the ticker is stopped.
+ * Must only be used from the main thread.
+ */
+public class MenuScheduler {
+
+    public static final int DEFAULT_UPDATE_PERIOD = 5;
+
+    private static final double IDEAL_TICK_MILLIS = 50;
+
+    private static volatile MenuScheduler instance;
+
+    private final JavaPlugin plugin;
+
+    private final PriorityQueue<ScheduledMenuTask> queue = new PriorityQueue<>(Comparator.comparingLong(ScheduledMenuTask::getNextRun));
+    private final Deque<ScheduledMenuTask> deferred = new ArrayDeque<>();
+    private final Map<Integer, int[]> phaseLoad = new HashMap<>();
+
+    /**
+     * The time all menu tasks may use per tick, 0 or less disables the budget.
+     */
+    @Getter
+    @Setter
+    private double tickBudgetMillis = 5;
+
+    /**
+     * The average tick time above which idle menus are throttled.
+     */
+    @Getter
+    @Setter
+    private double lagThresholdMillis = 55;
+
+    /**
+     * How long a menu may go without interaction before it's considered idle.
+     */
+    @Getter
+    @Setter
+    private long idleThresholdMillis = 10_000;
+
+    /**
+     * The largest factor an idle menu's period can be stretched by.
+     */
+    @Getter
+    @Setter
+    private int maxThrottle = 4;
+
+    @Getter
+    private long currentTick;
+
+    @Getter
+    private int activeTasks;
+
+    /**
+     * The smoothed time between ticks, as measured by this scheduler.
+     */
+    @Getter
+    private double averageTickMillis = IDEAL_TICK_MILLIS;
+    private long lastTickNanos;
+
+    /**
+     * The time menu tasks took during the last tick.
+     */
+    @Getter
+    private long lastRunNanos;
+
+    /**
+     * The number of task runs that were delayed past their due tick.
+     */
+    @Getter
+    private long deferredRuns;
+
+    private int taskId = -1;
+
+    private final AtomicBoolean applyRequested = new AtomicBoolean();
+
+    private MenuScheduler(@NonNull JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the shared scheduler, creating it for the provided
+     * plugin if none exists or the previous owner was disabled.
+     *
+     * @param plugin The plugin to run the ticker under.
+     * @return The shared scheduler.
+     */
+    public static MenuScheduler getInstance(@NonNull JavaPlugin plugin) {
+        if (instance != null && instance.plugin.isEnabled()) {
+            return instance;
+        }
+
+        if (instance != null) {
+            instance.shutdown();
+        }
+
+        instance = new MenuScheduler(plugin);
+        return instance;
+    }
+
+    /**
+     * Shut down the shared scheduler, if one exists.
+     */
+    public static void shutdownInstance() {
+        if (instance == null) {
+            return;
+        }
+
+        instance.shutdown();
+        instance = null;
+    }
+
+    /**
+     * Request that completed async item loads are applied on the
+     * main thread, even while no menu task keeps the ticker running.
+     * Safe to call from any thread.
+     */
+    public static void requestAsyncApply() {
+        MenuScheduler scheduler = instance;
+
+        if (scheduler == null || !scheduler.applyRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            Bukkit.getScheduler().runTask(scheduler.plugin, scheduler::applyAsyncItems);
+        } catch (IllegalPluginAccessException exception) {
+            scheduler.applyRequested.set(false);
+        }
+    }
+
+    /**
+     * Register a repeating task.
+     *
+     * @param runnable The task to run.
+     * @param period The period in ticks.
+     * @return A handle used to cancel the task.
+     */
+    public ScheduledMenuTask schedule(@NonNull Runnable runnable, int period) {
+        return schedule(null, runnable, period);
+    }
+
+    /**
+     * Register a repeating task on behalf of a menu, the
+     * task's period may be stretched while the menu is idle.
+     *
+     * @param menu The menu the task belongs to.
+     * @param runnable The task to run.
+     * @param period The period in ticks.
+     * @return A handle used to cancel the task.
+     */
+    public ScheduledMenuTask schedule(@Nullable Menu menu, @NonNull Runnable runnable, int period) {
+        period = Math.max(1, period);
+
+        int[] load = phaseLoad.computeIfAbsent(period, key -> new int[key]);
+        int phase = 0;
+
+        for (int i = 1; i < load.length; i++) {
+            if (load[i] < load[phase]) {
+                phase = i;
+            }
+        }
+
+        load[phase]++;
+
+        long nextRun = currentTick + 1;
+        nextRun += Math.floorMod(phase - nextRun, period);
+
+        ScheduledMenuTask task = new ScheduledMenuTask(this, menu, runnable, period, phase, nextRun);
+
+        queue.add(task);
+        activeTasks++;
+
+        start();
+        return task;
+    }
+
+    /**
+     * @return The number of due tasks waiting for budget.
+     */
+    public int getBacklog() {
+        return deferred.size();
+    }
+
+    /**
+     * @return The factor idle menus currently have their period stretched by.
+     */
+    public int getThrottle() {
+        if (averageTickMillis <= lagThresholdMillis) {
+            return 1;
+        }
+
+        return (int) Math.min(maxThrottle, Math.ceil(averageTickMillis / IDEAL_TICK_MILLIS));
+    }
+
+    /**
+     * Cancel every task and stop the ticker.
+     */
+    public void shutdown() {
+        queue.forEach(ScheduledMenuTask::cancel);
+        deferred.forEach(ScheduledMenuTask::cancel);
+
+        queue.clear();
+        deferred.clear();
+        phaseLoad.clear();
+        stop();
+    }
+
+    void release(@NonNull ScheduledMenuTask task) {
+        int[] load = phaseLoad.get(task.getPeriod());
+
+        if (load != null && load[task.getPhase()] > 0) {
+            load[task.getPhase()]--;
+        }
+
+        activeTasks = Math.max(0, activeTasks - 1);
+    }
+
+    private void tick() {
+        long tickStart = System.nanoTime();
+
+        if (lastTickNanos != 0) {
+            double tickMillis = (tickStart - lastTickNanos) / 1_000_000D;
+            averageTickMillis = averageTickMillis * 0.9 + tickMillis * 0.1;
+        }
+
+        lastTickNanos = tickStart;
+        currentTick++;
+
+        applyAsyncItems();
+
+        while (!queue.isEmpty() && queue.peek().getNextRun() <= currentTick) {
+            deferred.add(queue.poll());
+        }
+
+        long deadline = tickBudgetMillis <= 0 ? Long.MAX_VALUE : tickStart + (long) (tickBudgetMillis * 1_000_000);
+        int throttle = getThrottle();
+        int ran = 0;
+
+        while (!deferred.isEmpty()) {
+            if (ran > 0 && System.nanoTime() >= deadline) {
+                break;
+            }
+
+            ScheduledMenuTask task = deferred.poll();
+
+            if (task.isCancelled()) {
+                continue;
+            }
+
+            if (task.getNextRun() < currentTick) {
+                deferredRuns++;
+            }
+
+            try {
+                task.getRunnable().run();
+            } catch (Throwable throwable) {
+                plugin.getLogger().log(Level.SEVERE, "Menu task threw an exception", throwable);
+            }
+
+            ran++;
+
+            if (task.isCancelled()) {
+                continue;
+            }
+
+            int period = isIdle(task) ? task.getPeriod() * throttle : task.getPeriod();
+            long nextRun = task.getNextRun() + period;
+
+            while (nextRun <= currentTick) {
+                nextRun += period;
+            }
+
+            task.setNextRun(nextRun);
+            queue.add(task);
+        }
+
+        lastRunNanos = System.nanoTime() - tickStart;
+
+        if (activeTasks == 0) {
+            queue.clear();
+            deferred.clear();
+            stop();
+        }
+    }
+
+    private void applyAsyncItems() {
+        applyRequested.set(false);
+
+        try {
+            AsyncItemUpdateQueue.applyCompleted();
+        } catch (Throwable throwable) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to apply async menu items", throwable);
+        }
+    }
+
+    private boolean isIdle(@NonNull ScheduledMenuTask task) {
+        Menu menu = task.getMenu();
+        return menu != null && System.currentTimeMillis() - menu.getLastInteraction() > idleThresholdMillis;
+    }
+
+    private void start() {
+        if (taskId != -1) {
+            return;
+        }
+
+        taskId = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1, 1).getTaskId();
+    }
+
+    private void stop() {
+        if (taskId == -1) {
+            return;
+        }
+
+        Bukkit.getScheduler().cancelTask(taskId);
+        taskId = -1;
+        lastTickNanos = 0;
+    }
+
+}
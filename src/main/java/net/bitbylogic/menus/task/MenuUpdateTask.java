@@ -1,54 +1,72 @@
 package net.bitbylogic.menus.task;
 
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import net.bitbylogic.menus.Menu;
-import net.bitbylogic.menus.data.MenuData;
 import net.bitbylogic.menus.MenuFlag;
 import net.bitbylogic.menus.inventory.MenuInventory;
 import net.bitbylogic.menus.item.MenuItem;
-import net.bitbylogic.utils.inventory.InventoryUtil;
 import net.bitbylogic.utils.item.ItemStackUtil;
-import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
-import org.bukkit.Bukkit;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
 @RequiredArgsConstructor
 public class MenuUpdateTask {
 
     private final Menu menu;
 
-    private int taskId = -1;
+    @Getter
+    private final MenuRenderStats stats = new MenuRenderStats();
+
+    private ScheduledMenuTask task;
+
+    private long lastPlaceholderVersion = -1;
+    private int lastPageCount = -1;
+
+    private int slotWrites;
+    private boolean slotsCleared;
 
     public void startTask(@NonNull JavaPlugin plugin) {
-        if (taskId != -1) {
+        if (isActive()) {
             return;
         }
 
-        taskId = Bukkit.getScheduler().runTaskTimer(plugin, this::pushUpdates, 0, 5).getTaskId();
+        task = MenuScheduler.getInstance(plugin).schedule(menu, this::run, menu.getData().getUpdatePeriod());
     }
 
     public void cancelTask() {
-        if (taskId == -1) {
+        if (task == null) {
             return;
         }
 
-        Bukkit.getScheduler().cancelTask(taskId);
-        taskId = -1;
+        task.cancel();
+        task = null;
+    }
+
+    private void run() {
+        pushUpdates();
+
+        int period = Math.max(1, menu.getData().getUpdatePeriod());
+
+        if (task == null || task.getPeriod() == period) {
+            return;
+        }
+
+        MenuScheduler scheduler = task.getScheduler();
+
+        task.cancel();
+        task = scheduler.schedule(menu, this::run, period);
     }
 
     private void pushUpdates() {
         if (menu.getData().getMaxInventories() != -1 && !menu.getInventories().isEmpty()) {
-            Inventory finalInventory = menu.getInventories().getLast().getInventory();
-
-            if (!InventoryUtil.hasSpace(finalInventory, null, menu.getData().getValidSlots())) {
-                menu.generateNewInventory().ifPresent(menu.getInventories()::add);
+            if (!menu.getInventories().getLast().hasSpace()) {
+                menu.addNewInventory();
             }
         }
 
@@ -56,100 +74,261 @@ public class MenuUpdateTask {
             return;
         }
 
-        Iterator<MenuItem> itemIterator = menu.getItems().iterator();
+        long placeholderVersion = menu.getData().getPlaceholderVersion();
+        int pageCount = menu.getInventories().size();
+
+        boolean fullRefresh = menu.consumeFullRefresh() || menu.getData().hasFlag(MenuFlag.FULL_REFRESH)
+                || placeholderVersion != lastPlaceholderVersion || pageCount != lastPageCount;
 
-        while(itemIterator.hasNext()) {
-            MenuItem menuItem = itemIterator.next();
+        lastPlaceholderVersion = placeholderVersion;
+        lastPageCount = pageCount;
 
-            if (menuItem.getSlots().isEmpty()) {
-                menu.getData().getItemStorage().add(menuItem);
-                itemIterator.remove();
+        Set<MenuItem> dirtyItems = menu.drainDirtyItems();
+
+        int rendered = 0;
+        int skipped = 0;
+
+        slotWrites = 0;
+        slotsCleared = false;
+
+        List<MenuItem> pendingItems = new ArrayList<>();
+
+        menu.storeSlotlessItems();
+
+        for (MenuItem menuItem : menu.getItemsSnapshot()) {
+            // View requirements can change without the item changing, so they're always re-checked.
+            if (!fullRefresh && !menuItem.isUpdatable() && !dirtyItems.contains(menuItem) && menuItem.getViewRequirements().isEmpty()) {
+                skipped++;
                 continue;
             }
 
-            menuItem.getSourceInventories().forEach(inventory -> {
-                if (menuItem.getViewRequirements().stream().anyMatch(requirement -> !requirement.canView(inventory, menuItem, menu))) {
-                    menuItem.getSlots().forEach(slot -> {
-                        if(slot > inventory.getSize() - 1 || inventory.getItem(slot) == null || !ItemStackUtil.isSimilar(inventory.getItem(slot), menuItem.getItem(), true, true, true)) {
-                            return;
-                        }
+            rendered++;
+            pendingItems.add(menuItem);
+        }
 
-                        inventory.setItem(slot, null);
-                    });
-                    return;
-                }
+        Map<MenuInventory, Map<MenuItem, ItemStack>> providedItems = requestItems(pendingItems, null);
 
-                List<Integer> slots = menuItem.getSlots();
+        for (MenuItem menuItem : pendingItems) {
+            renderItem(menuItem, placeholderVersion, fullRefresh, providedItems, null);
+        }
 
-                if (menuItem.getItem() == null && menuItem.getItemUpdateProvider() == null) {
-                    slots.forEach(slot -> inventory.setItem(slot, null));
-                    return;
-                }
+        if (fullRefresh || slotsCleared) {
+            fillEmptySlots(null);
+        }
 
-                ItemStack item = menuItem.getItem().clone();
-                updateItemMeta(menu, item);
+        stats.record(fullRefresh, rendered, skipped, slotWrites);
+    }
 
-                slots.forEach(slot -> {
-                    if (inventory.getItem(slot) != null && inventory.getItem(slot).getType() == item.getType()) {
-                        return;
-                    }
+    /**
+     * Render an item to every page showing it right away,
+     * regardless of the update period.
+     *
+     * @param menuItem The item to render.
+     */
+    public void render(@NonNull MenuItem menuItem) {
+        renderItem(menuItem, menu.getData().getPlaceholderVersion(), false, requestItems(List.of(menuItem), null), null);
+    }
+
+    /**
+     * Render every item of a page, used when a page that was
+     * skipped while nobody viewed it is opened.
+     *
+     * @param page The page to render.
+     */
+    public void renderPage(@NonNull MenuInventory page) {
+        long placeholderVersion = menu.getData().getPlaceholderVersion();
+        List<MenuItem> pageItems = new ArrayList<>();
+
+        for (MenuItem menuItem : menu.getItemsSnapshot()) {
+            if (!menuItem.getSlots().isEmpty() && menuItem.getSourceInventories().contains(page.getInventory())) {
+                pageItems.add(menuItem);
+            }
+        }
 
-                    inventory.setItem(slot, item);
-                });
+        Map<MenuInventory, Map<MenuItem, ItemStack>> providedItems = requestItems(pageItems, page);
 
-                if (!menuItem.isUpdatable()) {
-                    return;
-                }
+        for (MenuItem menuItem : pageItems) {
+            renderItem(menuItem, placeholderVersion, true, providedItems, page);
+        }
+
+        fillEmptySlots(page);
+    }
+
+    /**
+     * Whether a page should be rendered, pages nobody views are
+     * skipped and marked for rendering once they're opened.
+     *
+     * @param menuInventory The page.
+     * @param targetPage The only page to render, or null for every viewed page.
+     * @return Whether to render the page.
+     */
+    private boolean shouldRender(@NonNull MenuInventory menuInventory, @Nullable MenuInventory targetPage) {
+        if (targetPage != null) {
+            return menuInventory == targetPage;
+        }
+
+        if (menuInventory.hasViewers()) {
+            return true;
+        }
 
-                ItemStack updatedItem = menuItem.getItemUpdateProvider() == null ? menuItem.getItem().clone() : menuItem.getItemUpdateProvider().requestItem(menuItem);
-                updateItemMeta(menu, updatedItem);
+        menuInventory.setRenderPending(true);
+        return false;
+    }
 
-                slots.forEach(slot -> inventory.setItem(slot, updatedItem));
-            });
+    /**
+     * Request the provided stacks of each page's items, calling
+     * every page's batch provider at most once.
+     *
+     * @param menuItems The items that need rendering.
+     * @param targetPage The only page to request for, or null for every viewed page.
+     * @return The provided stacks of each page.
+     */
+    private Map<MenuInventory, Map<MenuItem, ItemStack>> requestItems(@NonNull List<MenuItem> menuItems, @Nullable MenuInventory targetPage) {
+        if (menuItems.isEmpty()) {
+            return Map.of();
         }
 
+        Map<MenuInventory, Map<MenuItem, ItemStack>> providedItems = new IdentityHashMap<>();
+
         for (MenuInventory menuInventory : menu.getInventories()) {
-            Inventory inventory = menuInventory.getInventory();
+            if (menuInventory.getBatchItemProvider() == null && menu.getBatchItemProvider() == null) {
+                continue;
+            }
+
+            if (!shouldRender(menuInventory, targetPage)) {
+                continue;
+            }
+
+            List<MenuItem> pageItems = new ArrayList<>();
 
-            menu.getData().getFillerItem().ifPresent(fillerItem -> {
-                if(fillerItem.getItem() == null || fillerItem.getItem().getType().isAir()) {
-                    return;
+            for (MenuItem menuItem : menuItems) {
+                if (menuItem.getSourceInventories().contains(menuInventory.getInventory())) {
+                    pageItems.add(menuItem);
                 }
+            }
+
+            Map<MenuItem, ItemStack> results = menuInventory.requestItems(pageItems);
+
+            if (!results.isEmpty()) {
+                providedItems.put(menuInventory, results);
+            }
+        }
+
+        return providedItems;
+    }
 
-                fillerItem.setLocked(false);
+    private void renderItem(@NonNull MenuItem menuItem, long placeholderVersion, boolean verify,
+                            @NonNull Map<MenuInventory, Map<MenuItem, ItemStack>> providedItems, @Nullable MenuInventory targetPage) {
+        ItemStack updatedItem = null;
 
-                for (int i = 0; i < inventory.getSize(); i++) {
-                    if (fillerItem.getSlots().contains(i) || inventory.getItem(i) != null || menu.getData().getValidSlots().contains(i)) {
+        for (Inventory inventory : menuItem.getSourceInventories()) {
+            MenuInventory menuInventory = menu.getMenuInventory(inventory);
+
+            if (menuInventory == null || !shouldRender(menuInventory, targetPage)) {
+                continue;
+            }
+
+            if (menuItem.getViewRequirements().stream().anyMatch(requirement -> !requirement.canView(inventory, menuItem, menu))) {
+                for (int slot : menuItem.getSlots()) {
+                    if (slot > inventory.getSize() - 1 || menuInventory.getWrittenItem(slot) == null && !verify) {
                         continue;
                     }
 
-                    if(!fillerItem.getSourceInventories().contains(inventory)) {
-                        fillerItem.withSourceInventory(inventory);
+                    if (inventory.getItem(slot) == null || !ItemStackUtil.isSimilar(inventory.getItem(slot), menuItem.getItem(), true, true, true)) {
+                        continue;
                     }
 
-                    fillerItem.withSlot(i);
-                    inventory.setItem(i, fillerItem.getItem());
+                    setSlot(menuInventory, slot, null);
                 }
 
-                fillerItem.setLocked(true);
-            });
+                continue;
+            }
+
+            ItemStack provided = providedItems.getOrDefault(menuInventory, Map.of()).get(menuItem);
+
+            if (provided == null && menuItem.getItem() == null && menuItem.getItemUpdateProvider() == null) {
+                menuItem.getSlots().forEach(slot -> setSlot(menuInventory, slot, null));
+                continue;
+            }
+
+            ItemStack item;
+
+            if (provided != null) {
+                item = menuItem.render(menu.getData(), placeholderVersion, provided);
+            } else {
+                // Rendered once per run, updatable items re-read their source on every render.
+                if (updatedItem == null) {
+                    updatedItem = menuItem.render(menu.getData(), placeholderVersion);
+                }
+
+                item = updatedItem;
+            }
+
+            for (int slot : menuItem.getSlots()) {
+                if (verify && item != null && menuInventory.getWrittenItem(slot) == item) {
+                    ItemStack current = inventory.getItem(slot);
+
+                    if (current != null && current.getType() == item.getType()) {
+                        continue;
+                    }
+
+                    menuInventory.forgetWrittenItem(slot);
+                }
+
+                setSlot(menuInventory, slot, item);
+            }
         }
     }
 
-    private void updateItemMeta(@NonNull Menu menu, @NonNull ItemStack item) {
-        final MenuData data = menu.getData();
+    private void fillEmptySlots(@Nullable MenuInventory targetPage) {
+        MenuItem fillerItem = menu.getData().getFillerItem().orElse(null);
+
+        if (fillerItem == null || fillerItem.getItem() == null || fillerItem.getItem().getType().isAir()) {
+            return;
+        }
+
+        ItemStack fillerStack = fillerItem.render(menu.getData());
+
+        for (MenuInventory menuInventory : menu.getInventories()) {
+            if (!shouldRender(menuInventory, targetPage)) {
+                continue;
+            }
+
+            Inventory inventory = menuInventory.getInventory();
+
+            fillerItem.setLocked(false);
+
+            for (int i = 0; i < inventory.getSize(); i++) {
+                if (fillerItem.getSlots().contains(i) || inventory.getItem(i) != null || menu.getData().getValidSlots().contains(i)) {
+                    continue;
+                }
+
+                if(!fillerItem.getSourceInventories().contains(inventory)) {
+                    fillerItem.withSourceInventory(inventory);
+                }
 
-        if (data.getPlaceholders().isEmpty()) {
+                fillerItem.withSlot(i);
+                setSlot(menuInventory, i, fillerStack);
+            }
+
+            fillerItem.setLocked(true);
+        }
+    }
+
+    private void setSlot(@NonNull MenuInventory menuInventory, int slot, @Nullable ItemStack item) {
+        if (!menuInventory.setItem(slot, item)) {
             return;
         }
 
-        List<TagResolver.Single> placeholders = new ArrayList<>(data.getPlaceholders());
+        slotWrites++;
 
-        ItemStackUtil.updateItem(item, placeholders.toArray(new TagResolver.Single[]{}));
+        if (item == null) {
+            slotsCleared = true;
+        }
     }
 
     public boolean isActive() {
-        return taskId != -1;
+        return task != null && !task.isCancelled();
     }
 
 }
@@ -0,0 +1,49 @@
+package net.bitbylogic.menus.task;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import net.bitbylogic.menus.Menu;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A handle to a repeating task registered with the {@link MenuScheduler}.
+ */
+@Getter
+public class ScheduledMenuTask {
+
+    private final @NonNull MenuScheduler scheduler;
+    private final @Nullable Menu menu;
+    private final @NonNull Runnable runnable;
+
+    private final int period;
+    private final int phase;
+
+    @Setter(AccessLevel.PACKAGE)
+    private long nextRun;
+
+    private boolean cancelled;
+
+    ScheduledMenuTask(@NonNull MenuScheduler scheduler, @Nullable Menu menu, @NonNull Runnable runnable, int period, int phase, long nextRun) {
+        this.scheduler = scheduler;
+        this.menu = menu;
+        this.runnable = runnable;
+        this.period = period;
+        this.phase = phase;
+        this.nextRun = nextRun;
+    }
+
+    /**
+     * Stop this task, it won't run again.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+
+        cancelled = true;
+        scheduler.release(this);
+    }
+
+}
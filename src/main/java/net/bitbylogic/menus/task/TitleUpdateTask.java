@@ -4,10 +4,11 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import net.bitbylogic.menus.Menu;
 import net.bitbylogic.menus.MenuFlag;
-import net.bitbylogic.utils.message.MessageUtil;
+import net.bitbylogic.menus.inventory.MenuInventory;
+import net.bitbylogic.menus.text.MessageTemplateCache;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
-import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -18,52 +19,116 @@ import java.util.List;
 public class TitleUpdateTask {
 
     private final @NonNull Menu menu;
-    private int taskId = -1;
+    private ScheduledMenuTask task;
+
+    private long lastPlaceholderVersion = -1;
+    private int lastPageCount = -1;
+
+    private volatile boolean viewerSyncRequested = true;
 
     public void start(@NonNull JavaPlugin plugin) {
-        if(menu.getData().hasFlag(MenuFlag.DISABLE_TITLE_UPDATE)) {
+        if(menu.getData().hasFlag(MenuFlag.DISABLE_TITLE_UPDATE) || isActive()) {
             return;
         }
 
-        taskId = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::run, 5, 1).getTaskId();
+        task = MenuScheduler.getInstance(plugin).schedule(menu, this::run, 1);
     }
 
     public void cancel() {
-        if (taskId == -1) {
+        if (task == null) {
             return;
         }
 
-        Bukkit.getScheduler().cancelTask(taskId);
-        taskId = -1;
+        task.cancel();
+        task = null;
+    }
+
+    /**
+     * Push the current titles to every viewer on the next run,
+     * used when viewers open one of the menu's pages.
+     */
+    public void requestViewerSync() {
+        viewerSyncRequested = true;
     }
 
     private void run() {
-        List<TagResolver.Single> modifiers = new ArrayList<>();
-        modifiers.addAll(menu.getData().getPlaceholders());
+        long placeholderVersion = menu.getData().getPlaceholderVersion();
+        List<MenuInventory> pages = menu.getInventories();
+
+        boolean changed = placeholderVersion != lastPlaceholderVersion || pages.size() != lastPageCount;
+
+        lastPlaceholderVersion = placeholderVersion;
+        lastPageCount = pages.size();
 
-        modifiers.add(Placeholder.unparsed("pages", menu.getInventories().size() + ""));
+        List<MenuInventory> updatedPages = null;
+        List<TagResolver.Single> modifiers = null;
 
-        menu.getInventories().forEach(menuInventory -> {
-            Inventory inventory = menuInventory.getInventory();
+        for (int i = 0; i < pages.size(); i++) {
+            MenuInventory page = pages.get(i);
 
-            List<TagResolver.Single> finalModifiers = new ArrayList<>(modifiers);
+            if (!changed && page.getRenderedTitle() != null && page.getTitle().equals(page.getRenderedTemplate())) {
+                continue;
+            }
 
-            finalModifiers.add(Placeholder.unparsed("page", (menu.getInventories().indexOf(menuInventory) + 1) + ""));
+            if (modifiers == null) {
+                modifiers = new ArrayList<>(menu.getData().getPlaceholders());
+                modifiers.add(Placeholder.unparsed("pages", pages.size() + ""));
+            }
 
-            new ArrayList<>(inventory.getViewers()).forEach(viewer -> {
-                String newTitle = MessageUtil.deserializeToSpigot(menuInventory.getTitle(), finalModifiers.toArray(new TagResolver.Single[]{}));
+            List<TagResolver.Single> pageModifiers = new ArrayList<>(modifiers);
+            pageModifiers.add(Placeholder.unparsed("page", (i + 1) + ""));
+
+            String newTitle = MessageTemplateCache.getInstance().render(page.getTitle(), pageModifiers);
+            String previousTitle = page.getRenderedTitle();
+
+            page.setRenderedTemplate(page.getTitle());
+            page.setRenderedTitle(newTitle);
+
+            if (newTitle.equals(previousTitle)) {
+                continue;
+            }
+
+            if (updatedPages == null) {
+                updatedPages = new ArrayList<>();
+            }
+
+            updatedPages.add(page);
+        }
 
-                if (viewer.getOpenInventory().getTopInventory() != inventory || viewer.getOpenInventory().getTitle().equalsIgnoreCase(newTitle)) {
-                    return;
+        if (viewerSyncRequested) {
+            viewerSyncRequested = false;
+            pushTitles(pages);
+            return;
+        }
+
+        if (updatedPages == null) {
+            return;
+        }
+
+        pushTitles(updatedPages);
+    }
+
+    private void pushTitles(@NonNull List<MenuInventory> pages) {
+        for (MenuInventory page : pages) {
+            Inventory inventory = page.getInventory();
+            String title = page.getRenderedTitle();
+
+            if (title == null || inventory.getViewers().isEmpty()) {
+                continue;
+            }
+
+            for (HumanEntity viewer : new ArrayList<>(inventory.getViewers())) {
+                if (viewer.getOpenInventory().getTopInventory() != inventory || viewer.getOpenInventory().getTitle().equals(title)) {
+                    continue;
                 }
 
-                viewer.getOpenInventory().setTitle(newTitle);
-            });
-        });
+                viewer.getOpenInventory().setTitle(title);
+            }
+        }
     }
 
     public boolean isActive() {
-        return taskId != -1;
+        return task != null && !task.isCancelled();
     }
 
 }
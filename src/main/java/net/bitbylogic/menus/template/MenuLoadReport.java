@@ -0,0 +1,22 @@
+package net.bitbylogic.menus.template;
+
+import java.util.Map;
+
+/**
+ * The outcome of preloading a menus directory.
+ *
+ * @param loadNanos How long each file took to load, by menu file id.
+ * @param errors Why each failed file couldn't be loaded, by menu file id.
+ * @param totalNanos How long the whole preload took.
+ */
+public record MenuLoadReport(Map<String, Long> loadNanos, Map<String, Throwable> errors, long totalNanos) {
+
+    public int getLoadedCount() {
+        return loadNanos.size() - errors.size();
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+}
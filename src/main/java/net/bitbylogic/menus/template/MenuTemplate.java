@@ -0,0 +1,116 @@
+package net.bitbylogic.menus.template;
+
+import com.google.common.base.Preconditions;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.codec.MenuBinaryCodec;
+import net.bitbylogic.menus.codec.MenuFormatConverter;
+import net.bitbylogic.menus.data.MenuData;
+import net.bitbylogic.menus.item.MenuItem;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A menu file parsed once, handing out menus that are copies
+ * of the parsed definition. The definition itself is never
+ * exposed, so it doesn't change after loading. It's a plain
+ * definition, it never has pages and isn't known to the
+ * {@link net.bitbylogic.menus.MenuManager}.
+ */
+@Getter
+public final class MenuTemplate {
+
+    private static final MenuBinaryCodec CODEC = new MenuBinaryCodec();
+
+    private final Path path;
+
+    @Getter(AccessLevel.NONE)
+    private final Menu prototype;
+
+    /**
+     * The file's modification time when it was read.
+     */
+    private final long lastModified;
+
+    /**
+     * How long reading and deserializing the file took.
+     */
+    private final long loadNanos;
+
+    private MenuTemplate(@NonNull Path path, @NonNull Menu prototype, long lastModified, long loadNanos) {
+        this.path = path;
+        this.prototype = prototype;
+        this.lastModified = lastModified;
+        this.loadNanos = loadNanos;
+    }
+
+    /**
+     * Read and deserialize a YAML or binary menu file.
+     *
+     * @param path The menu file.
+     * @return The template.
+     * @throws IOException If the file can't be read or isn't a valid binary menu.
+     * @throws InvalidConfigurationException If the file isn't valid YAML or doesn't define a valid menu.
+     */
+    public static MenuTemplate load(@NonNull Path path) throws IOException, InvalidConfigurationException {
+        long start = System.nanoTime();
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+        Menu prototype;
+
+        if (path.getFileName().toString().endsWith(MenuFormatConverter.BINARY_EXTENSION)) {
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                prototype = CODEC.read(inputStream);
+            }
+        } else {
+            YamlConfiguration config = new YamlConfiguration();
+            config.loadFromString(Files.readString(path));
+
+            try {
+                prototype = Menu.getFromConfig(config)
+                        .orElseThrow(() -> new InvalidConfigurationException("No menu defined in " + path.getFileName()));
+            } catch (RuntimeException exception) {
+                throw new InvalidConfigurationException("Invalid menu in " + path.getFileName() + ": " + exception.getMessage(), exception);
+            }
+        }
+
+        // Templates are loaded off the main thread, deserializing must not create inventories.
+        Preconditions.checkState(!prototype.hasInventories(), "Menu '%s' generated pages while loading", prototype.getId());
+
+        return new MenuTemplate(path, prototype, lastModified, System.nanoTime() - start);
+    }
+
+    public String getId() {
+        return prototype.getId();
+    }
+
+    /**
+     * Create a menu from this template. Its items are copies
+     * without pages, they're placed on the menu's own pages
+     * once those are generated.
+     *
+     * @return A new menu, independent of other instances.
+     */
+    public Menu newInstance() {
+        MenuData data = prototype.getData().clone();
+
+        data.getItemStorage().clear();
+        prototype.getData().getItemStorage().forEach(item -> data.getItemStorage().add(item.copy()));
+
+        Menu menu = new Menu(prototype.getId(), prototype.getTitle(), prototype.getSize(), data);
+
+        for (MenuItem item : prototype.getItems()) {
+            menu.addItem(item.copy());
+        }
+
+        return menu;
+    }
+
+}
@@ -0,0 +1,205 @@
+package net.bitbylogic.menus.template;
+
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Caches parsed menu files so opening a config defined menu
+ * copies its template instead of reading the file again.
+ * <p>
+ * Directories holding cached files are watched, a template is
+ * dropped as soon as its file is created, modified or deleted
+ * and read again the next time it's requested.
+ */
+public class MenuTemplateCache {
+
+    private static final MenuTemplateCache INSTANCE = new MenuTemplateCache();
+
+    private final Map<Path, MenuTemplate> templates = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong totalLoadNanos = new AtomicLong();
+
+    private @Nullable WatchService watchService;
+
+    public static MenuTemplateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get a template, reading the file if it isn't cached.
+     *
+     * @param file The menu file.
+     * @return The template, or empty if the file doesn't exist or can't be loaded.
+     */
+    public Optional<MenuTemplate> getTemplate(@NonNull File file) {
+        Path path = normalize(file.toPath());
+        MenuTemplate template = templates.get(path);
+
+        if (template != null) {
+            hits.incrementAndGet();
+            return Optional.of(template);
+        }
+
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        misses.incrementAndGet();
+        watch(path.getParent());
+
+        try {
+            template = MenuTemplate.load(path);
+        } catch (IOException | InvalidConfigurationException | RuntimeException exception) {
+            Bukkit.getLogger().log(Level.WARNING, "Failed to load menu file '" + path.getFileName() + "'", exception);
+            return Optional.empty();
+        }
+
+        put(template);
+        return Optional.of(template);
+    }
+
+    /**
+     * Cache an already loaded template, replacing the one of the same file.
+     *
+     * @param template The template.
+     */
+    public void put(@NonNull MenuTemplate template) {
+        Path path = normalize(template.getPath());
+
+        loads.incrementAndGet();
+        totalLoadNanos.addAndGet(template.getLoadNanos());
+
+        watch(path.getParent());
+        templates.put(path, template);
+
+        // The file may have changed before the watch picked it up.
+        try {
+            if (Files.getLastModifiedTime(path).toMillis() != template.getLastModified()) {
+                templates.remove(path, template);
+            }
+        } catch (IOException exception) {
+            templates.remove(path, template);
+        }
+    }
+
+    public void invalidate(@NonNull File file) {
+        templates.remove(normalize(file.toPath()));
+    }
+
+    public void invalidateAll() {
+        templates.clear();
+    }
+
+    public int getSize() {
+        return templates.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of files read into templates.
+     */
+    public long getLoads() {
+        return loads.get();
+    }
+
+    public long getTotalLoadNanos() {
+        return totalLoadNanos.get();
+    }
+
+    public long getAverageLoadNanos() {
+        long loads = this.loads.get();
+        return loads == 0 ? 0 : totalLoadNanos.get() / loads;
+    }
+
+    /**
+     * Stop watching directories and clear the cache.
+     */
+    public synchronized void close() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+
+            watchService = null;
+        }
+
+        watchedDirectories.clear();
+        templates.clear();
+    }
+
+    private synchronized void watch(@Nullable Path directory) {
+        if (directory == null || watchedDirectories.containsKey(directory)) {
+            return;
+        }
+
+        try {
+            if (watchService == null) {
+                WatchService service = FileSystems.getDefault().newWatchService();
+
+                watchService = service;
+                Thread.ofPlatform().daemon().name("Bits-Menus Template Watcher").start(() -> processEvents(service));
+            }
+
+            watchedDirectories.put(directory, directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE));
+        } catch (IOException exception) {
+            Bukkit.getLogger().log(Level.WARNING, "Failed to watch menu directory '" + directory + "'", exception);
+        }
+    }
+
+    private void processEvents(@NonNull WatchService service) {
+        while (true) {
+            WatchKey key;
+
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException exception) {
+                return;
+            }
+
+            Path directory = (Path) key.watchable();
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    templates.keySet().removeIf(path -> directory.equals(path.getParent()));
+                    continue;
+                }
+
+                templates.remove(directory.resolve((Path) event.context()));
+            }
+
+            if (!key.reset()) {
+                watchedDirectories.remove(directory, key);
+                templates.keySet().removeIf(path -> directory.equals(path.getParent()));
+            }
+        }
+    }
+
+    private Path normalize(@NonNull Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+}
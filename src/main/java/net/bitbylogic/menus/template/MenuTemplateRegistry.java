@@ -0,0 +1,181 @@
+package net.bitbylogic.menus.template;
+
+import lombok.NonNull;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.codec.MenuFormatConverter;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.stream.Stream;
+
+/**
+ * Menu templates preloaded from a plugin's menus directory, keyed
+ * by their file id, the path under the directory without extension
+ * as passed to {@link Menu#getFromFile}. A binary menu file takes
+ * precedence over a YAML file with the same id.
+ * <p>
+ * Files are read and deserialized in parallel, the results replace
+ * the registry's contents at once when every file is done. Loaded
+ * templates are also added to the {@link MenuTemplateCache}.
+ * <p>
+ * Workers only parse files into plain definitions, they create no
+ * inventories and register nothing. Menus, and their pages, are
+ * created from the templates on the thread asking for them.
+ */
+public class MenuTemplateRegistry {
+
+    private static final String MENU_DIRECTORY = "menus";
+
+    private static final MenuTemplateRegistry INSTANCE = new MenuTemplateRegistry();
+
+    private volatile Map<String, MenuTemplate> templates = Map.of();
+
+    public static MenuTemplateRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Load every menu file under the menus directory on a worker pool
+     * sized to the available processors, blocking until all are done.
+     *
+     * @param directory The plugin's data folder.
+     * @return The per-file load times and errors.
+     */
+    public MenuLoadReport preload(@NonNull File directory) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+
+        try {
+            return preload(directory, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Load every menu file under the menus directory, blocking until all are done.
+     *
+     * @param directory The plugin's data folder.
+     * @param executor The executor parsing the files.
+     * @return The per-file load times and errors.
+     */
+    public MenuLoadReport preload(@NonNull File directory, @NonNull Executor executor) {
+        long start = System.nanoTime();
+        Path menuDirectory = directory.toPath().resolve(MENU_DIRECTORY).toAbsolutePath().normalize();
+
+        Map<String, Long> loadNanos = new TreeMap<>();
+        Map<String, Throwable> errors = new TreeMap<>();
+
+        if (!Files.isDirectory(menuDirectory)) {
+            templates = Map.of();
+            return new MenuLoadReport(loadNanos, errors, System.nanoTime() - start);
+        }
+
+        Map<String, Path> files = new LinkedHashMap<>();
+
+        try (Stream<Path> paths = Files.walk(menuDirectory)) {
+            paths.filter(Files::isRegularFile).filter(this::isMenuFile).forEach(file -> {
+                if (file.getFileName().toString().endsWith(MenuFormatConverter.BINARY_EXTENSION)) {
+                    files.put(getFileId(menuDirectory, file), file);
+                    return;
+                }
+
+                files.putIfAbsent(getFileId(menuDirectory, file), file);
+            });
+        } catch (IOException exception) {
+            errors.put(MENU_DIRECTORY, exception);
+            return new MenuLoadReport(loadNanos, errors, System.nanoTime() - start);
+        }
+
+        Map<String, CompletableFuture<MenuTemplate>> futures = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Path> entry : files.entrySet()) {
+            Path file = entry.getValue();
+
+            futures.put(entry.getKey(), CompletableFuture.supplyAsync(() -> {
+                long fileStart = System.nanoTime();
+
+                try {
+                    return MenuTemplate.load(file);
+                } catch (Exception exception) {
+                    throw new FailedLoad(exception, System.nanoTime() - fileStart);
+                }
+            }, executor));
+        }
+
+        Map<String, MenuTemplate> loaded = new HashMap<>();
+
+        futures.forEach((id, future) -> {
+            try {
+                MenuTemplate template = future.join();
+
+                loaded.put(id, template);
+                loadNanos.put(id, template.getLoadNanos());
+            } catch (CompletionException exception) {
+                Throwable cause = exception.getCause();
+
+                if (cause instanceof FailedLoad failedLoad) {
+                    loadNanos.put(id, failedLoad.loadNanos);
+                    errors.put(id, failedLoad.getCause());
+                    return;
+                }
+
+                loadNanos.put(id, 0L);
+                errors.put(id, cause);
+            }
+        });
+
+        templates = Map.copyOf(loaded);
+        loaded.values().forEach(MenuTemplateCache.getInstance()::put);
+
+        MenuLoadReport report = new MenuLoadReport(loadNanos, errors, System.nanoTime() - start);
+
+        errors.forEach((id, error) -> Bukkit.getLogger().log(Level.WARNING, "Failed to load menu file '" + id + "'", error));
+        return report;
+    }
+
+    public Optional<MenuTemplate> getTemplate(@NonNull String id) {
+        return Optional.ofNullable(templates.get(id));
+    }
+
+    /**
+     * Create a menu from a preloaded template.
+     *
+     * @param id The menu's file id.
+     * @return The menu, or empty if no template was loaded for the id.
+     */
+    public Optional<Menu> createMenu(@NonNull String id) {
+        return getTemplate(id).map(MenuTemplate::newInstance);
+    }
+
+    public Map<String, MenuTemplate> getTemplates() {
+        return templates;
+    }
+
+    private String getFileId(@NonNull Path menuDirectory, @NonNull Path file) {
+        String relative = menuDirectory.relativize(file).toString().replace(File.separatorChar, '/');
+        return relative.substring(0, relative.lastIndexOf('.'));
+    }
+
+    private boolean isMenuFile(@NonNull Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(MenuFormatConverter.YAML_EXTENSION) || name.endsWith(MenuFormatConverter.BINARY_EXTENSION);
+    }
+
+    private static class FailedLoad extends RuntimeException {
+
+        private final long loadNanos;
+
+        private FailedLoad(@NonNull Throwable cause, long loadNanos) {
+            super(cause);
+            this.loadNanos = loadNanos;
+        }
+
+    }
+
+}
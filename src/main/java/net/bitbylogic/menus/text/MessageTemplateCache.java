@@ -0,0 +1,233 @@
+package net.bitbylogic.menus.text;
+
+import lombok.Getter;
+import lombok.NonNull;
+import net.bitbylogic.utils.message.MessageUtil;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextComponent;
+import net.kyori.adventure.text.minimessage.tag.Inserting;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches MiniMessage templates, such as titles and lore lines, in
+ * their parsed form so rendering only substitutes placeholder values.
+ * <p>
+ * A template is parsed once per set of placeholder keys with every
+ * placeholder replaced by a marker, rendering swaps the markers for
+ * the placeholders' text. Placeholders that aren't plain text, like
+ * parsed or styled ones, are rendered without the cache.
+ */
+public class MessageTemplateCache {
+
+    private static final char MARKER_START = '\uE000';
+    private static final char MARKER_END = '\uE001';
+
+    private static final MessageTemplateCache INSTANCE = new MessageTemplateCache(1024);
+
+    private final Map<String, String> templates;
+
+    @Getter
+    private volatile int maxSize;
+
+    @Getter
+    private long hits;
+
+    @Getter
+    private long misses;
+
+    @Getter
+    private long evictions;
+
+    /**
+     * The number of renders that bypassed the cache.
+     */
+    @Getter
+    private long bypasses;
+
+    public MessageTemplateCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.templates = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                if (size() <= MessageTemplateCache.this.maxSize) {
+                    return false;
+                }
+
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    public static MessageTemplateCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Render a template, equivalent to {@link MessageUtil#deserializeToSpigot}.
+     *
+     * @param template The MiniMessage template.
+     * @param placeholders The placeholders to apply.
+     * @return The rendered legacy text.
+     */
+    public String render(@NonNull String template, @NonNull List<TagResolver.Single> placeholders) {
+        String[] values = new String[placeholders.size()];
+        StringBuilder keyBuilder = new StringBuilder(template.length() + placeholders.size() * 8).append(template);
+
+        for (int i = 0; i < values.length; i++) {
+            TagResolver.Single placeholder = placeholders.get(i);
+            String value = getText(placeholder.tag());
+
+            if (value == null) {
+                synchronized (this) {
+                    bypasses++;
+                }
+
+                return MessageUtil.deserializeToSpigot(template, placeholders.toArray(new TagResolver.Single[]{}));
+            }
+
+            values[i] = value;
+            keyBuilder.append(MARKER_END).append(placeholder.key());
+        }
+
+        String key = keyBuilder.toString();
+        String compiled;
+
+        synchronized (this) {
+            compiled = templates.get(key);
+
+            if (compiled != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+
+        if (compiled == null) {
+            compiled = compile(template, placeholders);
+
+            synchronized (this) {
+                templates.put(key, compiled);
+            }
+        }
+
+        return substitute(compiled, values);
+    }
+
+    /**
+     * Render an item's display name and lore through the cache.
+     *
+     * @param item The item to update.
+     * @param placeholders The placeholders to apply.
+     */
+    public void updateItem(@NonNull ItemStack item, @NonNull List<TagResolver.Single> placeholders) {
+        ItemMeta meta = item.getItemMeta();
+
+        if (meta == null) {
+            return;
+        }
+
+        if (meta.hasDisplayName()) {
+            meta.setDisplayName(render(meta.getDisplayName(), placeholders));
+        }
+
+        if (meta.hasLore() && meta.getLore() != null) {
+            List<String> lore = new ArrayList<>(meta.getLore().size());
+
+            for (String line : meta.getLore()) {
+                lore.add(render(line, placeholders));
+            }
+
+            meta.setLore(lore);
+        }
+
+        item.setItemMeta(meta);
+    }
+
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+
+        while (templates.size() > this.maxSize) {
+            templates.remove(templates.keySet().iterator().next());
+            evictions++;
+        }
+    }
+
+    public synchronized int getSize() {
+        return templates.size();
+    }
+
+    /**
+     * @return The fraction of renders served from the cache, from 0 to 1.
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public synchronized void clear() {
+        templates.clear();
+    }
+
+    private String compile(@NonNull String template, @NonNull List<TagResolver.Single> placeholders) {
+        TagResolver.Single[] markers = new TagResolver.Single[placeholders.size()];
+
+        for (int i = 0; i < markers.length; i++) {
+            markers[i] = Placeholder.unparsed(placeholders.get(i).key(), MARKER_START + Integer.toString(i) + MARKER_END);
+        }
+
+        return MessageUtil.deserializeToSpigot(template, markers);
+    }
+
+    private String substitute(@NonNull String compiled, @NonNull String[] values) {
+        int start = compiled.indexOf(MARKER_START);
+
+        if (start == -1) {
+            return compiled;
+        }
+
+        StringBuilder builder = new StringBuilder(compiled.length() + 16);
+        int last = 0;
+
+        while (start != -1) {
+            int end = compiled.indexOf(MARKER_END, start);
+
+            if (end == -1) {
+                break;
+            }
+
+            builder.append(compiled, last, start);
+            builder.append(values[Integer.parseInt(compiled, start + 1, end, 10)]);
+
+            last = end + 1;
+            start = compiled.indexOf(MARKER_START, last);
+        }
+
+        return builder.append(compiled, last, compiled.length()).toString();
+    }
+
+    private @Nullable String getText(@NonNull Tag tag) {
+        if (!(tag instanceof Inserting inserting)) {
+            return null;
+        }
+
+        Component value = inserting.value();
+
+        if (!(value instanceof TextComponent text) || !text.children().isEmpty() || !text.style().isEmpty()) {
+            return null;
+        }
+
+        return text.content();
+    }
+
+}
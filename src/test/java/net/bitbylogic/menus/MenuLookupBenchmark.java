@@ -0,0 +1,93 @@
+package net.bitbylogic.menus;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.bitbylogic.menus.item.MenuItem;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures slot lookups while the update task re-renders an item
+ * that keeps moving between slots, against the same lookups without
+ * a writer. Run with {@code mvn test -Pbenchmark -Dbenchmark=MenuLookupBenchmark}.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MenuLookupBenchmark {
+
+    private static final int SIZE = 54;
+
+    @Param({"10", "45"})
+    private int itemCount;
+
+    private Menu menu;
+    private Inventory inventory;
+    private MenuItem movingItem;
+
+    private int nextSlot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MockBukkit.mock();
+
+        menu = new Menu("benchmark", "Benchmark", SIZE);
+
+        for (int i = 0; i < itemCount; i++) {
+            menu.addItem(new MenuItem("item-" + i).withSlot(i).item(new ItemStack(Material.STONE)));
+        }
+
+        movingItem = new MenuItem("moving").withSlot(SIZE - 1).item(new ItemStack(Material.DIAMOND));
+        menu.addItem(movingItem);
+
+        inventory = menu.getInventory();
+        menu.getItems(inventory, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public List<MenuItem> lookup() {
+        return menu.getItems(inventory, ThreadLocalRandom.current().nextInt(SIZE));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Inventory page() {
+        return menu.getInventory();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void update() {
+        int slot = SIZE - 1 - (nextSlot++ % (SIZE - itemCount));
+
+        movingItem.clearSlots();
+        movingItem.withSlot(slot);
+
+        menu.getUpdateTask().render(movingItem);
+    }
+
+    @Benchmark
+    @Group("uncontended")
+    @GroupThreads(4)
+    public List<MenuItem> lookupAlone() {
+        return menu.getItems(inventory, ThreadLocalRandom.current().nextInt(SIZE));
+    }
+
+}
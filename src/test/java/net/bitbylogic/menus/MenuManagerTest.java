@@ -0,0 +1,55 @@
+package net.bitbylogic.menus;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.bitbylogic.menus.inventory.MenuInventory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuManagerTest {
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void registersPagesOnlyWhileViewed() {
+        Menu menu = new Menu("test", "Test", 9);
+        MenuInventory page = menu.getMenuInventory(menu.getInventory());
+
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        assertNull(MenuManager.getInstance().getPage(page.getInventory()));
+
+        menu.addViewer(page, first);
+        menu.addViewer(page, second);
+
+        assertSame(page, MenuManager.getInstance().getPage(page.getInventory()));
+        assertSame(menu, MenuManager.getInstance().getMenu(page.getInventory()));
+        assertEquals(Set.of(first, second), Set.copyOf(menu.getViewers()));
+        assertEquals(Set.of(first, second), menu.getViewerSet());
+
+        menu.removeViewer(page, first);
+
+        assertSame(page, MenuManager.getInstance().getPage(page.getInventory()));
+
+        menu.removeViewer(page, second);
+
+        assertNull(MenuManager.getInstance().getPage(page.getInventory()));
+        assertTrue(menu.getViewers().isEmpty());
+        assertFalse(MenuManager.getInstance().getMenus().contains(menu));
+    }
+
+}
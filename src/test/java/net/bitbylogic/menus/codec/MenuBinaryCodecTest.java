@@ -0,0 +1,345 @@
+package net.bitbylogic.menus.codec;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.MenuFlag;
+import net.bitbylogic.menus.action.InternalClickAction;
+import net.bitbylogic.menus.data.MenuData;
+import net.bitbylogic.menus.item.MenuItem;
+import net.bitbylogic.menus.task.MenuSaveQueue;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuBinaryCodecTest {
+
+    private static final MenuBinaryCodec CODEC = new MenuBinaryCodec();
+
+    @BeforeAll
+    static void setUp() {
+        MockBukkit.mock();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void roundTripsMenu() throws IOException {
+        Menu menu = createMenu();
+        Menu decoded = CODEC.decode(CODEC.encode(menu));
+
+        assertEquals(menu.getId(), decoded.getId());
+        assertEquals(menu.getTitle(), decoded.getTitle());
+        assertEquals(menu.getSize(), decoded.getSize());
+        assertEquals(menu.getItemsSnapshot().size(), decoded.getItemsSnapshot().size());
+
+        for (MenuItem item : menu.getItemsSnapshot()) {
+            assertItemEquals(item, decoded.getItem(item.getId()).orElseThrow());
+        }
+    }
+
+    @Test
+    void roundTripsMenuData() throws IOException {
+        Menu menu = createMenu();
+        MenuData data = menu.getData();
+        MenuData decoded = CODEC.decode(CODEC.encode(menu)).getData();
+
+        assertEquals(data.getMinInventories(), decoded.getMinInventories());
+        assertEquals(data.getMaxInventories(), decoded.getMaxInventories());
+        assertEquals(data.getUpdatePeriod(), decoded.getUpdatePeriod());
+        assertEquals(data.getValidSlots(), decoded.getValidSlots());
+        assertEquals(data.getFlags(), decoded.getFlags());
+        assertEquals(data.getMetadata(), decoded.getMetadata());
+        assertEquals(data.getItemStorage().size(), decoded.getItemStorage().size());
+
+        for (MenuItem item : data.getItemStorage()) {
+            assertItemEquals(item, decoded.getStoredItem(item.getId()).orElseThrow());
+        }
+    }
+
+    @Test
+    void roundTripsMenuItem() throws IOException {
+        Menu menu = createMenu();
+        MenuItem item = menu.getItem("reward").orElseThrow();
+        MenuItem decoded = CODEC.decode(CODEC.encode(menu)).getItem("reward").orElseThrow();
+
+        assertItemEquals(item, decoded);
+        assertEquals(TimeUnit.SECONDS, decoded.getClickCooldownUnit());
+        assertEquals(2, decoded.getClickCooldownTime());
+        assertFalse(decoded.isGlobal());
+        assertEquals(2, decoded.getCompiledActions().size());
+    }
+
+    @Test
+    void roundTripsItemStackMeta() throws IOException {
+        ItemStack stack = createStack();
+        ItemStack decoded = CODEC.decode(CODEC.encode(createMenu())).getItem("reward").orElseThrow().getItem();
+
+        assertNotNull(decoded);
+        assertEquals(stack, decoded);
+
+        ItemMeta meta = decoded.getItemMeta();
+
+        assertNotNull(meta);
+        assertEquals("Reward", meta.getDisplayName());
+        assertEquals(List.of("First line", "Second line"), meta.getLore());
+        assertEquals(3, meta.getEnchantLevel(Enchantment.SHARPNESS));
+        assertEquals(7, meta.getCustomModelData());
+        assertTrue(meta.hasItemFlag(ItemFlag.HIDE_ENCHANTS));
+    }
+
+    @Test
+    void convertsBetweenYamlAndBinary(@TempDir Path directory) throws Exception {
+        Path yaml = directory.resolve("shop.yml");
+        Path binary = MenuFormatConverter.withExtension(yaml, MenuFormatConverter.BINARY_EXTENSION);
+        Path converted = directory.resolve("converted.yml");
+
+        Menu menu = createMenu();
+
+        // Nested metadata is loaded back from YAML as configuration sections
+        menu.getData().withMetadata("limits", Map.of("daily", 5, "weekly", 20));
+        menu.getItem("reward").orElseThrow().withMetadata("requirements", Map.of("level", 10, "rank", "vip"));
+
+        MenuFormatConverter.toYaml(writeBinary(directory.resolve("source.bmenu"), menu), yaml);
+        MenuFormatConverter.toBinary(yaml, binary);
+        MenuFormatConverter.toYaml(binary, converted);
+
+        YamlConfiguration expected = YamlConfiguration.loadConfiguration(yaml.toFile());
+        YamlConfiguration actual = YamlConfiguration.loadConfiguration(converted.toFile());
+
+        assertEquals(expected.getKeys(true), actual.getKeys(true));
+
+        for (String key : expected.getKeys(true)) {
+            if (!expected.isConfigurationSection(key)) {
+                assertEquals(expected.get(key), actual.get(key), key);
+            }
+        }
+    }
+
+    @Test
+    void savesToConvertedBinaryFile(@TempDir Path directory) throws Exception {
+        Path yaml = directory.resolve("menus/shop.yml");
+        Path binary = MenuFormatConverter.withExtension(yaml, MenuFormatConverter.BINARY_EXTENSION);
+
+        Files.createDirectories(yaml.getParent());
+        MenuFormatConverter.toYaml(writeBinary(directory.resolve("source.bmenu"), createMenu()), yaml);
+        MenuFormatConverter.toBinary(yaml, binary);
+
+        Menu menu = Menu.getFromFile(directory.toFile(), "shop").orElseThrow();
+        menu.addItem(new MenuItem("added").withSlot(22).item(new ItemStack(Material.EMERALD)));
+
+        try {
+            menu.saveToFileAsync(directory.toFile()).join();
+        } finally {
+            MenuSaveQueue.shutdownInstance();
+        }
+
+        Menu reloaded = Menu.getFromFile(directory.toFile(), "shop").orElseThrow();
+
+        assertTrue(reloaded.getItem("added").isPresent());
+        assertEquals(menu.getItems().size(), CODEC.decode(Files.readAllBytes(binary)).getItems().size());
+    }
+
+    @Test
+    void rejectsWrongMagic() {
+        assertThrows(IOException.class, () -> CODEC.decode(new byte[]{0, 0, 0, 0, 0, 1}));
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        byte[] bytes = CODEC.encode(createMenu());
+
+        for (int length : new int[]{6, 10, bytes.length / 2, bytes.length - 1}) {
+            assertThrows(IOException.class, () -> CODEC.decode(Arrays.copyOf(bytes, length)));
+        }
+    }
+
+    @Test
+    void rejectsNegativeStringLength() throws IOException {
+        assertThrows(IOException.class, () -> CODEC.decode(header(out -> out.writeInt(-5))));
+    }
+
+    @Test
+    void rejectsOversizedStringLength() throws IOException {
+        assertThrows(IOException.class, () -> CODEC.decode(header(out -> out.writeInt(Integer.MAX_VALUE))));
+    }
+
+    @Test
+    void rejectsOversizedCounts() throws IOException {
+        byte[] bytes = header(out -> {
+            writeMenuStart(out);
+            out.writeInt(-1);
+        });
+
+        assertThrows(IOException.class, () -> CODEC.decode(bytes));
+    }
+
+    @Test
+    void rejectsUnknownCooldownUnit() throws IOException {
+        byte[] bytes = header(out -> {
+            writeMenuStart(out);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(10);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(1);
+
+            writeString(out, "broken");
+            out.writeByte(0);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(10);
+            out.writeInt(0);
+            out.writeInt(200);
+            out.writeByte(99);
+        });
+
+        assertThrows(IOException.class, () -> CODEC.decode(bytes));
+    }
+
+    @Test
+    void rejectsInvalidSize() throws IOException {
+        byte[] bytes = header(out -> {
+            writeString(out, "menu");
+            writeString(out, "Title");
+            out.writeInt(10);
+        });
+
+        assertThrows(IOException.class, () -> CODEC.decode(bytes));
+    }
+
+    private static Menu createMenu() {
+        MenuData data = new MenuData()
+                .withMinInventories(2)
+                .withMaxInventories(4)
+                .withUpdatePeriod(5)
+                .withValidSlots(List.of(10, 11, 12))
+                .withFlag(MenuFlag.DEBUG)
+                .withMetadata("category", "weapons")
+                .withMetadata("price", 250);
+
+        data.withStoredItem(new MenuItem("next-page")
+                .withSlot(26)
+                .item(new ItemStack(Material.ARROW))
+                .withMetadata("page", 1));
+
+        Menu menu = new Menu("shop", "Shop", 27, data);
+
+        menu.addItem(new MenuItem("reward")
+                .withSlots(List.of(4, 13))
+                .withInternalAction(InternalClickAction.RUN_CONSOLE_COMMAND, "give %player% diamond")
+                .withInternalAction(InternalClickAction.SEND_MESSAGE, "<green>Thanks %player%!")
+                .withMetadata("tier", 3)
+                .withMetadata("tags", List.of("rare", "shiny"))
+                .withClickCooldownTime(2)
+                .withClickCooldownUnit(TimeUnit.SECONDS)
+                .item(createStack())
+                .updatable(true)
+                .saveSlots(false));
+
+        menu.getItem("reward").orElseThrow().setGlobal(false);
+
+        menu.addItem(new MenuItem("border")
+                .withSlots(List.of(0, 8, 18, 26))
+                .item(new ItemStack(Material.GRAY_STAINED_GLASS_PANE)));
+
+        return menu;
+    }
+
+    private static ItemStack createStack() {
+        ItemStack stack = new ItemStack(Material.DIAMOND_SWORD);
+        ItemMeta meta = stack.getItemMeta();
+
+        meta.setDisplayName("Reward");
+        meta.setLore(List.of("First line", "Second line"));
+        meta.addEnchant(Enchantment.SHARPNESS, 3, true);
+        meta.setCustomModelData(7);
+        meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+
+        stack.setItemMeta(meta);
+        return stack;
+    }
+
+    private static void assertItemEquals(MenuItem expected, MenuItem actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getSlots(), actual.getSlots());
+        assertEquals(expected.getInternalActions(), actual.getInternalActions());
+        assertEquals(expected.getMetadata(), actual.getMetadata());
+        assertEquals(expected.getItem(), actual.getItem());
+        assertEquals(expected.getClickCooldownTime(), actual.getClickCooldownTime());
+        assertEquals(expected.getClickCooldownUnit(), actual.getClickCooldownUnit());
+        assertEquals(expected.isFiller(), actual.isFiller());
+        assertEquals(expected.isUpdatable(), actual.isUpdatable());
+        assertEquals(expected.isLocked(), actual.isLocked());
+        assertEquals(expected.isGlobal(), actual.isGlobal());
+        assertEquals(expected.isSaveSlots(), actual.isSaveSlots());
+        assertEquals(expected.isSaved(), actual.isSaved());
+    }
+
+    private static Path writeBinary(Path file, Menu menu) throws IOException {
+        Files.write(file, CODEC.encode(menu));
+        return file;
+    }
+
+    /**
+     * Write a menu's id, title, size and the start of its data,
+     * up to its valid slots.
+     */
+    private static void writeMenuStart(DataOutputStream out) throws IOException {
+        writeString(out, "menu");
+        writeString(out, "Title");
+        out.writeInt(9);
+        out.writeInt(1);
+        out.writeInt(-1);
+        out.writeInt(1);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] header(BodyWriter body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(MenuBinaryCodec.MAGIC);
+        out.writeShort(MenuBinaryCodec.VERSION);
+        body.write(out);
+        out.flush();
+
+        return bytes.toByteArray();
+    }
+
+    private interface BodyWriter {
+
+        void write(DataOutputStream out) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,102 @@
+package net.bitbylogic.menus.codec;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.MenuSerializer;
+import net.bitbylogic.menus.action.InternalClickAction;
+import net.bitbylogic.menus.data.MenuData;
+import net.bitbylogic.menus.item.MenuItem;
+import org.bukkit.Material;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading and writing a menu as YAML against the
+ * binary format, run with {@code mvn test -Pbenchmark -Dbenchmark=MenuCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MenuCodecBenchmark {
+
+    private static final MenuBinaryCodec CODEC = new MenuBinaryCodec();
+    private static final MenuSerializer SERIALIZER = new MenuSerializer();
+
+    @Param({"10", "100"})
+    private int itemCount;
+
+    private Menu menu;
+    private String yaml;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MockBukkit.mock();
+
+        MenuData data = new MenuData().withValidSlots(List.of(10, 11, 12, 13, 14, 15, 16));
+        menu = new Menu("benchmark", "Benchmark", 54, data);
+
+        for (int i = 0; i < itemCount; i++) {
+            ItemStack stack = new ItemStack(Material.DIAMOND);
+            ItemMeta meta = stack.getItemMeta();
+
+            meta.setDisplayName("Item " + i);
+            meta.setLore(List.of("Price: " + i * 10, "Click to buy", "Stock: unlimited"));
+            stack.setItemMeta(meta);
+
+            menu.addItem(new MenuItem("item-" + i)
+                    .withSlot(i % 54)
+                    .withInternalAction(InternalClickAction.RUN_CONSOLE_COMMAND, "give %player% diamond " + i)
+                    .withMetadata("price", i * 10)
+                    .item(stack));
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        SERIALIZER.serialize(config, menu);
+
+        yaml = config.saveToString();
+        binary = CODEC.encode(menu);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public Menu readYaml() throws InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.loadFromString(yaml);
+
+        return SERIALIZER.deserialize(config).orElseThrow();
+    }
+
+    @Benchmark
+    public Menu readBinary() throws IOException {
+        return CODEC.decode(binary);
+    }
+
+    @Benchmark
+    public String writeYaml() {
+        YamlConfiguration config = new YamlConfiguration();
+        SERIALIZER.serialize(config, menu);
+
+        return config.saveToString();
+    }
+
+    @Benchmark
+    public byte[] writeBinary() {
+        return CODEC.encode(menu);
+    }
+
+}
@@ -0,0 +1,70 @@
+package net.bitbylogic.menus.inventory;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.data.MenuData;
+import net.bitbylogic.menus.item.MenuItem;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuInventoryTest {
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void rebuildsMaskWhenValidSlotsAreSwapped() {
+        MenuData data = new MenuData().withValidSlots(List.of(0, 1));
+        Menu menu = new Menu("test", "Test", 9, data);
+        MenuInventory page = menu.getMenuInventory(menu.getInventory());
+
+        page.setItem(0, new ItemStack(Material.STONE));
+        page.setItem(1, new ItemStack(Material.STONE));
+
+        assertFalse(page.hasSpace());
+
+        data.getValidSlots().set(1, 5);
+
+        assertTrue(page.hasSpace());
+        assertEquals(5, page.getNextFreeSlot(0));
+    }
+
+    @Test
+    void hasNoSpaceWithoutValidSlots() {
+        Menu menu = new Menu("test", "Test", 9);
+        MenuInventory page = menu.getMenuInventory(menu.getInventory());
+
+        assertFalse(page.hasSpace());
+        assertEquals(-1, page.getNextFreeSlot(0));
+        assertNull(menu.getNextAvailableSlot());
+    }
+
+    @Test
+    void doesNotMergeIntoMenuItemSlots() {
+        MenuData data = new MenuData().withValidSlots(List.of(0, 1)).withMaxInventories(1);
+        Menu menu = new Menu("test", "Test", 9, data);
+
+        menu.addItem(new MenuItem("button").withSlot(0).item(new ItemStack(Material.STONE)));
+
+        MenuInventory page = menu.getMenuInventory(menu.getInventory());
+
+        assertTrue(menu.addItemStacks(List.of(new ItemStack(Material.STONE))).isEmpty());
+        assertEquals(1, page.getInventory().getItem(0).getAmount());
+        assertEquals(1, page.getInventory().getItem(1).getAmount());
+    }
+
+}
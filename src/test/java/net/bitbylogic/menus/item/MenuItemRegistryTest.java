@@ -0,0 +1,43 @@
+package net.bitbylogic.menus.item;
+
+import net.bitbylogic.menus.data.MenuData;
+import net.bitbylogic.utils.GenericHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuItemRegistryTest {
+
+    @Test
+    void menuDataSharesProvidedStorage() {
+        List<MenuItem> storage = new ArrayList<>();
+        MenuData data = new MenuData(storage, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new GenericHashMap<>());
+
+        MenuItem stored = new MenuItem("Stored");
+        data.getItemStorage().add(stored);
+
+        assertEquals(List.of(stored), storage);
+
+        MenuItem external = new MenuItem("External").filler(true);
+        storage.add(external);
+
+        assertSame(external, data.getStoredItem("external").orElseThrow());
+        assertSame(external, data.getFillerItem().orElseThrow());
+
+        storage.remove(external);
+
+        assertTrue(data.getStoredItem("external").isEmpty());
+        assertTrue(data.getFillerItem().isEmpty());
+    }
+
+    @Test
+    void backedByRegistryReturnsIt() {
+        MenuItemRegistry registry = new MenuItemRegistry();
+
+        assertSame(registry, MenuItemRegistry.backedBy(registry));
+    }
+
+}
@@ -0,0 +1,112 @@
+package net.bitbylogic.menus.item;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.action.CompiledClickAction;
+import net.bitbylogic.menus.action.InternalClickAction;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuItemTest {
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void changingSlotsDirectlyUpdatesIndex() {
+        Menu menu = new Menu("test", "Test", 9);
+        Inventory inventory = menu.getInventory();
+        MenuItem item = new MenuItem("test").item(new ItemStack(Material.STONE)).withSlot(0);
+
+        menu.addItem(item);
+
+        assertEquals(List.of(item), menu.getItems(inventory, 0));
+
+        item.getSlots().add(3);
+        item.getSlots().remove(Integer.valueOf(0));
+
+        assertTrue(menu.getItems(inventory, 0).isEmpty());
+        assertEquals(List.of(item), menu.getItems(inventory, 3));
+
+        item.getSourceInventories().clear();
+
+        assertTrue(menu.getItems(inventory, 3).isEmpty());
+    }
+
+    @Test
+    void removingSlotsUpdatesIndex() {
+        Menu menu = new Menu("test", "Test", 9);
+        Inventory inventory = menu.getInventory();
+        MenuItem item = new MenuItem("test").item(new ItemStack(Material.STONE)).withSlots(List.of(0, 1));
+
+        menu.addItem(item);
+
+        assertEquals(List.of(item), menu.getItems(inventory, 0));
+
+        assertTrue(item.removeSlots(List.of(0)));
+        assertTrue(menu.getItems(inventory, 0).isEmpty());
+        assertEquals(List.of(item), menu.getItems(inventory, 1));
+
+        assertTrue(item.clearSlots());
+        assertTrue(menu.getItems(inventory, 1).isEmpty());
+    }
+
+    @Test
+    void removingSourceInventoriesUpdatesIndex() {
+        Menu menu = new Menu("test", "Test", 9);
+        Inventory inventory = menu.getInventory();
+        MenuItem item = new MenuItem("test").item(new ItemStack(Material.STONE)).withSlot(0);
+
+        menu.addItem(item);
+
+        assertEquals(List.of(inventory), item.getSourceInventories());
+        assertTrue(item.removeSourceInventories(inventory::equals));
+        assertTrue(menu.getItems(inventory, 0).isEmpty());
+    }
+
+    @Test
+    void skipsInvalidInternalActions() {
+        MenuItem item = new MenuItem("test")
+                .withInternalAction(InternalClickAction.RUN_CONSOLE_COMMAND, " ")
+                .withInternalAction(InternalClickAction.CLOSE_INVENTORY, "");
+
+        List<CompiledClickAction> compiled = item.getCompiledActions();
+
+        assertEquals(1, compiled.size());
+        assertEquals(InternalClickAction.CLOSE_INVENTORY, compiled.getFirst().getType());
+    }
+
+    @Test
+    void recompilesActionsChangedDirectly() {
+        MenuItem item = new MenuItem("test").withInternalAction(InternalClickAction.RUN_CONSOLE_COMMAND, "say one");
+
+        assertEquals("say one", item.getCompiledActions().getFirst().getArgs());
+
+        item.getInternalActions().put(InternalClickAction.RUN_CONSOLE_COMMAND, "say two");
+
+        assertEquals("say two", item.getCompiledActions().getFirst().getArgs());
+    }
+
+    @Test
+    void detectsSelfClosingPlayerTag() {
+        CompiledClickAction action = CompiledClickAction.compile(InternalClickAction.SEND_MESSAGE, "<green>Hi <player/>!");
+
+        assertTrue(action.getMessageHasPlayer()[0]);
+    }
+
+}
@@ -0,0 +1,52 @@
+package net.bitbylogic.menus.listener;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.MenuManager;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuListenerTest {
+
+    private ServerMock server;
+    private MenuListener listener;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        listener = new MenuListener(MockBukkit.createMockPlugin());
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void cancelsClicksOnUnregisteredPages() {
+        Menu menu = new Menu("test", "Test", 9);
+        Inventory inventory = menu.getInventory();
+        PlayerMock player = server.addPlayer();
+
+        InventoryView view = player.openInventory(inventory);
+
+        assertNull(MenuManager.getInstance().getMenu(inventory));
+
+        InventoryClickEvent event = new InventoryClickEvent(view, InventoryType.SlotType.CONTAINER, 0, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+        listener.onMenuClick(event);
+
+        assertTrue(event.isCancelled());
+    }
+
+}
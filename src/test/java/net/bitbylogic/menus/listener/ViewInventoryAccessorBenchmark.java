@@ -0,0 +1,64 @@
+package net.bitbylogic.menus.listener;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import net.bitbylogic.utils.inventory.InventoryUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading an event view's inventories through the cached
+ * method handles against {@link InventoryUtil}'s lookup by name, run
+ * with {@code mvn test -Pbenchmark -Dbenchmark=ViewInventoryAccessorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViewInventoryAccessorBenchmark {
+
+    private InventoryClickEvent event;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ServerMock server = MockBukkit.mock();
+        PlayerMock player = server.addPlayer();
+
+        Inventory inventory = Bukkit.createInventory(null, 27, "Benchmark");
+        InventoryView view = player.openInventory(inventory);
+
+        event = new InventoryClickEvent(view, InventoryType.SlotType.CONTAINER, 0, ClickType.LEFT, InventoryAction.PICKUP_ALL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public Inventory direct() {
+        return event.getView().getTopInventory();
+    }
+
+    @Benchmark
+    public Inventory accessor() {
+        return ViewInventoryAccessor.getTopInventory(event);
+    }
+
+    @Benchmark
+    public Inventory inventoryUtil() {
+        return InventoryUtil.getViewInventory(event, "getTopInventory");
+    }
+
+}
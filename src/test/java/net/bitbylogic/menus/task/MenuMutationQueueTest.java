@@ -0,0 +1,114 @@
+package net.bitbylogic.menus.task;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.data.MenuData;
+import net.bitbylogic.menus.item.MenuItem;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuMutationQueueTest {
+
+    private ServerMock server;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MenuMutationQueue.shutdownInstance();
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void shutdownAppliesQueuedChanges() {
+        Menu menu = new Menu("test", "Test", 9);
+        MenuMutationQueue queue = MenuMutationQueue.getInstance(MockBukkit.createMockPlugin());
+
+        CompletableFuture<Void> future = queue.setPlaceholder(menu, Placeholder.unparsed("name", "value"));
+
+        assertFalse(future.isDone());
+
+        MenuMutationQueue.shutdownInstance();
+
+        assertTrue(future.isDone());
+        assertEquals(0, queue.getPending());
+    }
+
+    @Test
+    void replacedQueueHandsOverChanges() {
+        Menu menu = new Menu("test", "Test", 9);
+        JavaPlugin plugin = MockBukkit.createMockPlugin();
+        MenuMutationQueue queue = MenuMutationQueue.getInstance(plugin);
+
+        CompletableFuture<Void> future = queue.setPlaceholder(menu, Placeholder.unparsed("name", "value"));
+
+        server.getPluginManager().disablePlugin(plugin);
+
+        MenuMutationQueue replacement = MenuMutationQueue.getInstance(MockBukkit.createMockPlugin());
+
+        assertNotSame(queue, replacement);
+        assertEquals(0, queue.getPending());
+        assertEquals(1, replacement.getPending());
+
+        server.getScheduler().performOneTick();
+
+        assertTrue(future.isDone());
+        assertEquals(0, replacement.getPending());
+    }
+
+    @Test
+    void removeFromOtherMenuKeepsPendingAdd() {
+        Menu first = new Menu("first", "First", 9);
+        Menu second = new Menu("second", "Second", 9);
+        MenuItem item = new MenuItem("item").withSlot(0).item(new ItemStack(Material.STONE));
+        MenuMutationQueue queue = MenuMutationQueue.getInstance(MockBukkit.createMockPlugin());
+
+        CompletableFuture<Void> added = queue.addItem(first, item);
+        CompletableFuture<Boolean> removedFromSecond = queue.removeItem(second, item);
+        CompletableFuture<Boolean> removedFromFirst = queue.removeItem(first, item);
+
+        queue.drain();
+
+        assertTrue(added.isDone());
+        assertFalse(removedFromSecond.join());
+        assertTrue(removedFromFirst.join());
+        assertFalse(first.getItems().contains(item));
+        assertEquals(2, queue.getMergedMutations());
+    }
+
+    @Test
+    void stacksKeepTheirPlaceBetweenOtherChanges() {
+        MenuData data = new MenuData().withValidSlots(List.of(0)).withMaxInventories(1);
+        Menu menu = new Menu("test", "Test", 9, data);
+        MenuItem blocker = new MenuItem("blocker").withSlot(0).item(new ItemStack(Material.BARRIER));
+
+        menu.addItem(blocker);
+        menu.getInventory();
+
+        MenuMutationQueue queue = MenuMutationQueue.getInstance(MockBukkit.createMockPlugin());
+
+        CompletableFuture<Integer> beforeRemoval = queue.addItemStack(menu, new ItemStack(Material.STONE));
+        queue.removeItem(menu, blocker);
+        CompletableFuture<Integer> afterRemoval = queue.addItemStack(menu, new ItemStack(Material.STONE));
+
+        queue.drain();
+
+        assertEquals(1, beforeRemoval.join());
+        assertEquals(0, afterRemoval.join());
+    }
+
+}
@@ -0,0 +1,55 @@
+package net.bitbylogic.menus.task;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuSaveQueueTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void coalescesPendingSaves() throws Exception {
+        MenuSaveQueue queue = MenuSaveQueue.getInstance();
+        Path file = directory.resolve("menu.yml");
+
+        try {
+            CompletableFuture<Void> first = queue.save(file, () -> "first".getBytes(StandardCharsets.UTF_8));
+            CompletableFuture<Void> second = queue.save(file, () -> "second".getBytes(StandardCharsets.UTF_8));
+
+            assertSame(first, second);
+
+            queue.flush();
+
+            assertTrue(first.isDone());
+            assertEquals("second", Files.readString(file));
+        } finally {
+            MenuSaveQueue.shutdownInstance();
+        }
+    }
+
+    @Test
+    void writesSynchronouslyAfterShutdown() throws Exception {
+        MenuSaveQueue queue = MenuSaveQueue.getInstance();
+        Path file = directory.resolve("menu.yml");
+
+        queue.shutdown();
+
+        CompletableFuture<Void> future = queue.save(file, () -> "saved".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(future.isDone());
+        assertFalse(future.isCompletedExceptionally());
+        assertEquals("saved", Files.readString(file));
+        assertEquals(0, queue.getPendingCount());
+
+        MenuSaveQueue.shutdownInstance();
+    }
+
+}
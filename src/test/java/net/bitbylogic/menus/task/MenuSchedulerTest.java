@@ -0,0 +1,53 @@
+package net.bitbylogic.menus.task;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import net.bitbylogic.menus.item.AsyncItemUpdateQueue;
+import net.bitbylogic.menus.item.AsyncMenuItemUpdateProvider;
+import net.bitbylogic.menus.item.MenuItem;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuSchedulerTest {
+
+    private ServerMock server;
+    private MenuScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        scheduler = MenuScheduler.getInstance(MockBukkit.createMockPlugin());
+    }
+
+    @AfterEach
+    void tearDown() {
+        MenuScheduler.shutdownInstance();
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void appliesAsyncItemsWhileStopped() {
+        CompletableFuture<ItemStack> load = new CompletableFuture<>();
+        AsyncMenuItemUpdateProvider provider = (menuItem, executor) -> load;
+        MenuItem item = new MenuItem("async").item(new ItemStack(Material.STONE));
+
+        assertEquals(Material.STONE, provider.requestItem(item).getType());
+        assertEquals(0, scheduler.getActiveTasks());
+
+        load.complete(new ItemStack(Material.DIAMOND));
+        assertEquals(1, AsyncItemUpdateQueue.getPending());
+
+        server.getScheduler().performOneTick();
+
+        assertEquals(0, AsyncItemUpdateQueue.getPending());
+        assertEquals(Material.DIAMOND, provider.requestItem(item).getType());
+    }
+
+}
@@ -0,0 +1,72 @@
+package net.bitbylogic.menus.template;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.MenuManager;
+import net.bitbylogic.menus.codec.MenuBinaryCodec;
+import net.bitbylogic.menus.item.MenuItem;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuTemplateRegistryTest {
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+        MenuTemplateCache.getInstance().invalidateAll();
+    }
+
+    @Test
+    void preloadBuildsDefinitionsWithoutPages() throws Exception {
+        Path menus = Files.createDirectories(directory.resolve("menus"));
+        MenuBinaryCodec codec = new MenuBinaryCodec();
+
+        for (int i = 0; i < 8; i++) {
+            Menu menu = new Menu("menu-" + i, "Menu " + i, 9);
+            menu.addItem(new MenuItem("item").withSlot(i).item(new ItemStack(Material.STONE)));
+
+            Files.write(menus.resolve("menu-" + i + ".bmenu"), codec.encode(menu));
+        }
+
+        int pageCount = MenuManager.getInstance().getPageCount();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            MenuLoadReport report = MenuTemplateRegistry.getInstance().preload(directory.toFile(), executor);
+
+            assertFalse(report.hasErrors());
+            assertEquals(8, report.getLoadedCount());
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(pageCount, MenuManager.getInstance().getPageCount());
+
+        Menu menu = MenuTemplateRegistry.getInstance().createMenu("menu-3").orElseThrow();
+        MenuItem item = menu.getItem("item").orElseThrow();
+
+        assertFalse(menu.hasInventories());
+        assertTrue(item.getSourceInventories().isEmpty());
+        assertEquals(Material.STONE, menu.getInventory().getItem(3).getType());
+    }
+
+}
@@ -0,0 +1,120 @@
+package net.bitbylogic.menus.template;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.bitbylogic.menus.Menu;
+import net.bitbylogic.menus.MenuManager;
+import net.bitbylogic.menus.MenuSerializer;
+import net.bitbylogic.menus.codec.MenuBinaryCodec;
+import net.bitbylogic.menus.item.MenuItem;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuTemplateTest {
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void loadingCreatesNoPages() throws Exception {
+        int pageCount = MenuManager.getInstance().getPageCount();
+        Menu menu = loadBinary().newInstance();
+
+        assertEquals(pageCount, MenuManager.getInstance().getPageCount());
+
+        for (MenuItem item : menu.getItemsSnapshot()) {
+            assertTrue(item.getSourceInventories().isEmpty(), item.getId());
+        }
+    }
+
+    @Test
+    void instancePagesContainTemplateItems() throws Exception {
+        MenuTemplate template = loadBinary();
+
+        Menu first = template.newInstance();
+        Menu second = template.newInstance();
+
+        assertPageContainsItems(first);
+        assertPageContainsItems(second);
+
+        assertNotSame(first.getInventory(), second.getInventory());
+        assertNotSame(first.getItem("local").orElseThrow(), second.getItem("local").orElseThrow());
+    }
+
+    @Test
+    void yamlInstancePagesContainTemplateItems() throws Exception {
+        YamlConfiguration config = new YamlConfiguration();
+        new MenuSerializer().serialize(config, createMenu());
+
+        Path file = directory.resolve("shop.yml");
+        Files.writeString(file, config.saveToString());
+
+        Menu menu = MenuTemplate.load(file).newInstance();
+        Inventory page = menu.getInventory();
+
+        assertEquals(Material.DIAMOND, page.getItem(2).getType());
+        assertEquals(Material.EMERALD, page.getItem(4).getType());
+        assertEquals("local", menu.getItem(page, 2).orElseThrow().getId());
+    }
+
+    private void assertPageContainsItems(Menu menu) {
+        Inventory page = menu.getInventory();
+
+        assertNotNull(page.getItem(2));
+        assertNotNull(page.getItem(4));
+        assertEquals(Material.DIAMOND, page.getItem(2).getType());
+        assertEquals(Material.EMERALD, page.getItem(4).getType());
+
+        MenuItem local = menu.getItem(page, 2).orElseThrow();
+
+        assertEquals("local", local.getId());
+        assertEquals(List.of(page), local.getSourceInventories());
+        assertEquals("global", menu.getItem(page, 4).orElseThrow().getId());
+    }
+
+    private MenuTemplate loadBinary() throws Exception {
+        Path file = directory.resolve("shop.bmenu");
+        Files.write(file, new MenuBinaryCodec().encode(createMenu()));
+
+        return MenuTemplate.load(file);
+    }
+
+    private static Menu createMenu() {
+        Menu menu = new Menu("shop", "Shop", 9);
+
+        MenuItem local = new MenuItem("local")
+                .withSlot(2)
+                .item(new ItemStack(Material.DIAMOND));
+
+        local.setGlobal(false);
+
+        menu.addItem(local);
+        menu.addItem(new MenuItem("global")
+                .withSlot(4)
+                .item(new ItemStack(Material.EMERALD)));
+
+        return menu;
+    }
+
+}